@@ -0,0 +1,78 @@
+package com.microcommerce.userservice.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation JSON des événements échangés via RabbitMQ
+ *
+ * ObjectMapper configuré comme celui de Spring Boot (modules Java Time, etc.),
+ * même si le convertisseur AMQP a sa propre instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private UserEvent userEvent;
+    private OrderEvent orderEvent;
+    private ProductEvent productEvent;
+    private byte[] orderEventJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        userEvent = new UserEvent("64b7f0c2e4b0a1a2b3c4d5e6", "Utilisateur Bench", "bench@example.com",
+            "USER", UserEvent.EventType.CREATED);
+
+        List<OrderEvent.OrderItemEvent> items = new ArrayList<>();
+        for (long i = 1; i <= 5; i++) {
+            items.add(new OrderEvent.OrderItemEvent(i, 2, new BigDecimal("19.90")));
+        }
+        orderEvent = new OrderEvent(42L, 7L, "CONFIRMED", new BigDecimal("199.00"), items,
+            "ORDER_CREATED");
+        productEvent = new ProductEvent("1234", "Produit bench", "Description du produit de bench",
+            new BigDecimal("19.90"), 100, "bench", ProductEvent.EventType.UPDATED);
+        orderEventJson = objectMapper.writeValueAsBytes(orderEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeUserEvent() throws Exception {
+        return objectMapper.writeValueAsBytes(userEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeOrderEvent() throws Exception {
+        return objectMapper.writeValueAsBytes(orderEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeProductEvent() throws Exception {
+        return objectMapper.writeValueAsBytes(productEvent);
+    }
+
+    @Benchmark
+    public OrderEvent deserializeOrderEvent() throws Exception {
+        return objectMapper.readValue(orderEventJson, OrderEvent.class);
+    }
+}
@@ -0,0 +1,189 @@
+package com.microcommerce.userservice.listener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Déduplication des messages consommés (EventDeduplicator)
+ *
+ * - key / keyFromFields : clé d'un message, par message-id ou par les champs de l'événement
+ * - isDuplicateHit / isDuplicateMiss : message déjà vu / nouveau, fenêtre bien remplie
+ * - markProcessedWithRotation : nouvelles clés en continu, générations petites pour tourner souvent
+ *
+ * Le setUp vérifie d'abord le comportement (détection à travers les rotations, expiration
+ * par la taille et par le temps, clé 0, collisions) et échoue si quelque chose ne va pas :
+ * les chiffres ne valent que pour une déduplication qui marche.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventDeduplicatorBenchmark {
+
+    private static final String QUEUE = "user-service.order.queue";
+    private static final int GENERATIONS = 4;
+    private static final int KEYS_PER_GENERATION = 100_000;
+    private static final int LOOKUP_KEYS = 1 << 16;
+
+    private EventDeduplicator deduplicator;
+    private EventDeduplicator rotating;
+    private String messageId;
+    private long[] knownKeys;
+    private long[] unknownKeys;
+    private int lookup;
+    private long nextKey = 1;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        verifyDuplicateDetection();
+
+        // Fenêtre pleine aux trois quarts, clés déjà vues / jamais vues tirées dans des tableaux
+        deduplicator = newDeduplicator(GENERATIONS, KEYS_PER_GENERATION);
+        knownKeys = new long[LOOKUP_KEYS];
+        unknownKeys = new long[LOOKUP_KEYS];
+        for (int i = 0; i < KEYS_PER_GENERATION * (GENERATIONS - 1); i++) {
+            long key = deduplicator.key(QUEUE, "known-" + i);
+            deduplicator.markProcessed(key);
+            if (i < LOOKUP_KEYS) {
+                knownKeys[i] = key;
+            }
+        }
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            unknownKeys[i] = deduplicator.key(QUEUE, "unknown-" + i);
+        }
+
+        // 1000 clés par génération : une rotation (et une nouvelle table) toutes les 1000 clés
+        rotating = newDeduplicator(GENERATIONS, 1000);
+        messageId = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public long key() {
+        return deduplicator.key(QUEUE, messageId);
+    }
+
+    @Benchmark
+    public long keyFromFields() {
+        // Pas de message-id : champs de l'événement (cf. OrderEventListener)
+        return deduplicator.key(QUEUE, null, 123456L, 42L, "SHIPPED", "ORDER_STATUS_UPDATED");
+    }
+
+    @Benchmark
+    public boolean isDuplicateHit() {
+        return deduplicator.isDuplicate(QUEUE, knownKeys[lookup++ & (LOOKUP_KEYS - 1)]);
+    }
+
+    @Benchmark
+    public boolean isDuplicateMiss() {
+        return deduplicator.isDuplicate(QUEUE, unknownKeys[lookup++ & (LOOKUP_KEYS - 1)]);
+    }
+
+    @Benchmark
+    public void markProcessedWithRotation() {
+        rotating.markProcessed(nextKey++);
+    }
+
+    /**
+     * Vérifications faites avant de mesurer, IllegalStateException au premier écart
+     */
+    static void verifyDuplicateDetection() {
+        int perGeneration = 1000;
+        EventDeduplicator dedup = newDeduplicator(GENERATIONS, perGeneration);
+
+        // Détection à travers les rotations : la fenêtre garde au moins GENERATIONS - 1 générations pleines
+        // (une génération pleine tourne dès l'appel suivant, même une simple lecture)
+        int windowKeys = (GENERATIONS - 1) * perGeneration;
+        for (long key = 1; key <= windowKeys; key++) {
+            check(!dedup.isDuplicate(QUEUE, key), "clé neuve vue comme doublon: " + key);
+            dedup.markProcessed(key);
+        }
+        for (long key = 1; key <= windowKeys; key++) {
+            check(dedup.isDuplicate(QUEUE, key), "doublon non détecté après rotation: " + key);
+        }
+        check(dedup.size() == windowKeys, "taille " + dedup.size() + " au lieu de " + windowKeys);
+
+        // Dernière génération remplie, puis rotation par la taille : la plus vieille (clés 1..1000) est jetée
+        long lastKey = (long) GENERATIONS * perGeneration + 1;
+        for (long key = windowKeys + 1; key <= lastKey; key++) {
+            dedup.markProcessed(key);
+        }
+        check(!dedup.isDuplicate(QUEUE, 1), "clé de la génération jetée encore présente");
+        check(dedup.isDuplicate(QUEUE, perGeneration + 1), "clé de la génération suivante perdue");
+        check(dedup.isDuplicate(QUEUE, lastKey), "clé de la nouvelle génération perdue");
+        check(dedup.size() <= (long) GENERATIONS * perGeneration, "mémoire non bornée: " + dedup.size());
+
+        // Marquer deux fois ne change rien
+        long before = dedup.size();
+        dedup.markProcessed(lastKey);
+        check(dedup.size() == before, "clé marquée deux fois comptée deux fois");
+
+        // 0 sert de case vide dans les tables : la clé 0 est gérée à part
+        dedup.markProcessed(0);
+        check(dedup.isDuplicate(QUEUE, 0), "clé 0 non détectée");
+
+        // Rotation par le temps : on recule le début de la génération courante
+        EventDeduplicator timed = newDeduplicator(GENERATIONS, perGeneration);
+        timed.markProcessed(7);
+        long generationNanos = (long) ReflectionTestUtils.getField(timed, "generationNanos");
+        shiftClock(timed, generationNanos * (GENERATIONS - 1));
+        check(timed.isDuplicate(QUEUE, 7), "clé perdue avant la fin de la fenêtre");
+        shiftClock(timed, generationNanos);
+        check(!timed.isDuplicate(QUEUE, 7), "clé encore présente après la fenêtre");
+        timed.markProcessed(8);
+        shiftClock(timed, generationNanos * GENERATIONS * 10); // Rien reçu pendant dix fenêtres
+        check(!timed.isDuplicate(QUEUE, 8), "clé encore présente après une longue pause");
+        timed.markProcessed(9);
+        check(timed.isDuplicate(QUEUE, 9), "clé perdue après une longue pause");
+
+        // Clés : même message-id sur deux queues, champs qui se touchent, pas de collision sur 1M ids
+        check(dedup.key("a", "m-1") != dedup.key("b", "m-1"), "même clé sur deux queues");
+        check(dedup.key(QUEUE, null, "ab", "c") != dedup.key(QUEUE, null, "a", "bc"), "champs concaténés sans séparateur");
+        Set<Long> keys = new HashSet<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            check(keys.add(dedup.key(QUEUE, UUID.randomUUID().toString())), "collision de clés après " + i + " ids");
+        }
+    }
+
+    private static void shiftClock(EventDeduplicator dedup, long nanos) {
+        long startedAt = (long) ReflectionTestUtils.getField(dedup, "currentStartedAt");
+        ReflectionTestUtils.setField(dedup, "currentStartedAt", startedAt - nanos);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("EventDeduplicator: " + message);
+        }
+    }
+
+    /**
+     * EventDeduplicator hors contexte Spring, en mémoire seulement (pas de Mongo)
+     */
+    static EventDeduplicator newDeduplicator(int generations, int maxKeysPerGeneration) {
+        EventDeduplicator dedup = new EventDeduplicator();
+        ReflectionTestUtils.setField(dedup, "windowMinutes", 60L);
+        ReflectionTestUtils.setField(dedup, "generationCount", generations);
+        ReflectionTestUtils.setField(dedup, "maxKeysPerGeneration", maxKeysPerGeneration);
+        ReflectionTestUtils.setField(dedup, "persistent", false);
+        ReflectionTestUtils.setField(dedup, "meterRegistry", new SimpleMeterRegistry());
+        dedup.init();
+        return dedup;
+    }
+}
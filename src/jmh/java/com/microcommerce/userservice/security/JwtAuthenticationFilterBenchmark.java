@@ -0,0 +1,70 @@
+package com.microcommerce.userservice.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût du filtre JWT par requête : lecture du header, vérification (en cache), authentification
+ *
+ * "valid" = token connu, "invalid" = signature fausse (cas d'un flood de tokens bidons),
+ * "none" = pas de header (endpoints publics)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"valid", "invalid", "none"})
+    private String authorization;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtUtil jwtUtil = JwtBenchmark.newJwtUtil(10_000);
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+
+        request = new MockHttpServletRequest("GET", "/api/users/me");
+        String token = jwtUtil.generateToken("bench@example.com", "64b7f0c2e4b0a1a2b3c4d5e6", "USER");
+        if ("valid".equals(authorization)) {
+            request.addHeader("Authorization", "Bearer " + token);
+        } else if ("invalid".equals(authorization)) {
+            request.addHeader("Authorization", "Bearer " + token.substring(0, token.length() - 4) + "AAAA");
+        }
+    }
+
+    @Benchmark
+    public Object doFilter() throws ServletException, IOException {
+        try {
+            // doFilterInternal directement : on mesure le filtre, pas la mécanique OncePerRequestFilter
+            filter.doFilterInternal(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
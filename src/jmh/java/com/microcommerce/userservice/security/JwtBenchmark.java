@@ -0,0 +1,80 @@
+package com.microcommerce.userservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Génération et vérification des tokens JWT
+ *
+ * - generateToken : signature HMAC à chaque login
+ * - verifyCached : le cas courant, token déjà vu (cache des tokens vérifiés)
+ * - verifyUncached : premier passage d'un token, parsing + vérification de signature
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtil = newJwtUtil(10_000);
+        // Cache de taille 0 : chaque appel refait le parsing et la signature
+        uncachedJwtUtil = newJwtUtil(0);
+        token = jwtUtil.generateToken("bench@example.com", "64b7f0c2e4b0a1a2b3c4d5e6", "USER");
+        jwtUtil.verify(token);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("bench@example.com", "64b7f0c2e4b0a1a2b3c4d5e6", "USER");
+    }
+
+    @Benchmark
+    public Boolean verifyCached() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Boolean verifyUncached() {
+        return uncachedJwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public String extractUserId() {
+        return jwtUtil.extractUserId(token);
+    }
+
+    /**
+     * JwtUtil hors contexte Spring, avec les valeurs par défaut de application.yml
+     */
+    static JwtUtil newJwtUtil(long cacheMaxSize) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", "benchmarkSecretKey1234567890123456789012345");
+        ReflectionTestUtils.setField(util, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(util, "keyId", "v1");
+        ReflectionTestUtils.setField(util, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(util, "meterRegistry", new SimpleMeterRegistry());
+        util.init();
+        return util;
+    }
+}
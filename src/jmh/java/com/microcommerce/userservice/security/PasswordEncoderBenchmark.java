@@ -0,0 +1,69 @@
+package com.microcommerce.userservice.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût d'un hash / d'une vérification de mot de passe, par algorithme
+ *
+ * Encodeurs construits par SecurityConfig, depuis le password-encoding.* de application.yml
+ * (surchargeable en -D, ex. -jvmArgs -Dpassword-encoding.bcrypt.strength=10) :
+ * c'est ce qui borne le débit de /login et /register, bien plus que le reste de la requête.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "correct-horse-battery-staple";
+
+    @Param({"bcrypt", "argon2", "scrypt", "pbkdf2"})
+    private String algorithm;
+
+    private PasswordEncoder encoder;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Premier document de application.yml : la config sans profil, celle de la prod
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addLast(new YamlPropertySourceLoader()
+            .load("application.yml", new ClassPathResource("application.yml")).get(0));
+
+        encoder = SecurityConfig.passwordEncoders(environment).get(algorithm);
+        if (encoder == null) {
+            throw new RuntimeException("Algorithme inconnu: " + algorithm);
+        }
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,85 @@
+package com.microcommerce.userservice.service;
+
+import com.microcommerce.userservice.dto.UserInfoDto;
+import com.microcommerce.userservice.dto.UserResponse;
+import com.microcommerce.userservice.repository.UserSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Conversion des utilisateurs en DTO sur de grandes pages (listes, recherche, /internal)
+ *
+ * Les projections UserSummary sont des instances simples ici : en vrai Spring Data
+ * renvoie un proxy, le chiffre mesuré est donc un plancher.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMappingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int size;
+
+    private UserService userService;
+    private List<UserSummary> summaries;
+    private List<CachedUser> cachedUsers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Les conversions n'utilisent aucune dépendance injectée
+        userService = new UserService();
+        summaries = new ArrayList<>(size);
+        cachedUsers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String id = String.format("64b7f0c2e4b0a1a2%08x", i);
+            String role = i % 50 == 0 ? "ADMIN" : "USER";
+            summaries.add(new Summary(id, "Utilisateur " + i, "user" + i + "@example.com", role));
+            cachedUsers.add(new CachedUser(id, "Utilisateur " + i, "user" + i + "@example.com", role));
+        }
+    }
+
+    @Benchmark
+    public List<UserResponse> summariesToUserResponses() {
+        return summaries.stream().map(userService::convertToUserResponse).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<UserResponse> cachedUsersToUserResponses() {
+        return cachedUsers.stream().map(userService::convertToUserResponse).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<UserInfoDto> cachedUsersToUserInfoDtos() {
+        return cachedUsers.stream().map(userService::convertToUserInfoDto).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<CachedUser> summariesToCachedUsers() {
+        return summaries.stream().map(CachedUser::from).collect(Collectors.toList());
+    }
+
+    private record Summary(String id, String name, String email, String role) implements UserSummary {
+        public String getId() { return id; }
+        public String getName() { return name; }
+        public String getEmail() { return email; }
+        public String getRole() { return role; }
+    }
+}
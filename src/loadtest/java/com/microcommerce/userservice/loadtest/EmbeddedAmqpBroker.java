@@ -0,0 +1,72 @@
+package com.microcommerce.userservice.loadtest;
+
+import org.apache.qpid.server.SystemLauncher;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.SystemConfig;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Broker AMQP 0-9-1 en mémoire (Qpid Broker-J), à la place de RabbitMQ
+ *
+ * Même utilisateur que docker-compose (admin / password123), un seul virtual host
+ * qui répond à tous les noms ("/" compris). Les files de retry à TTL et les
+ * dead letters ne se comportent pas exactement comme sur RabbitMQ : pour mesurer
+ * ces chemins-là, lancer le test contre un vrai RabbitMQ (--rabbitmq=host:port).
+ */
+public class EmbeddedAmqpBroker implements AutoCloseable {
+
+    private static final String INITIAL_CONFIGURATION = "loadtest-broker.json";
+
+    private final SystemLauncher launcher = new SystemLauncher();
+    private int port;
+
+    public void start() {
+        URL configuration = EmbeddedAmqpBroker.class.getClassLoader().getResource(INITIAL_CONFIGURATION);
+        if (configuration == null) {
+            throw new RuntimeException("Configuration du broker introuvable: " + INITIAL_CONFIGURATION);
+        }
+        port = freePort();
+
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(SystemConfig.TYPE, "Memory");
+        attributes.put(SystemConfig.INITIAL_CONFIGURATION_LOCATION, configuration.toExternalForm());
+        attributes.put(SystemConfig.STARTUP_LOGGED_TO_SYSTEM_OUT, false);
+        attributes.put(SystemConfig.CONTEXT, Map.of(
+            "qpid.amqp_port", String.valueOf(port),
+            // x-dead-letter-exchange, x-message-ttl... sont propres à RabbitMQ : acceptés et ignorés
+            // (sinon Qpid refuse de déclarer les queues de l'application)
+            Queue.UNKNOWN_QUEUE_DECLARE_ARGUMENT_BEHAVIOUR_NAME, Queue.BehaviourOnUnknownDeclareArgument.LOG.name()
+        ));
+        try {
+            launcher.startup(attributes);
+        } catch (Exception e) {
+            throw new RuntimeException("Impossible de démarrer le broker AMQP embarqué", e);
+        }
+    }
+
+    public String getHost() {
+        return "localhost";
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        launcher.shutdown();
+    }
+
+    static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new RuntimeException("Pas de port libre", e);
+        }
+    }
+}
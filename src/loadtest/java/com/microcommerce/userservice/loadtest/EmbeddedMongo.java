@@ -0,0 +1,41 @@
+package com.microcommerce.userservice.loadtest;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+/**
+ * mongod local lancé pour la durée du test (binaire téléchargé au premier lancement)
+ *
+ * Instance seule, sans replica set : l'application tourne donc sans transactions
+ * Mongo (user-events.outbox.transactions=false), comme en dev.
+ */
+public class EmbeddedMongo implements AutoCloseable {
+
+    private TransitionWalker.ReachedState<RunningMongodProcess> running;
+
+    public void start() {
+        running = Mongod.instance().start(Version.Main.V7_0);
+    }
+
+    public String getHost() {
+        return address().getHost();
+    }
+
+    public int getPort() {
+        return address().getPort();
+    }
+
+    private ServerAddress address() {
+        return running.current().getServerAddress();
+    }
+
+    @Override
+    public void close() {
+        if (running != null) {
+            running.close();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.microcommerce.userservice.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Résultats d'une opération du mix : latences (HdrHistogram, en µs), issues et erreurs
+ *
+ * La latence part de l'instant où la requête AURAIT dû partir d'après le débit demandé,
+ * pas de celui où elle est vraiment partie : si le service (ou le client) prend du retard,
+ * l'attente compte dans la latence au lieu de disparaître (coordinated omission).
+ */
+public class EndpointStats {
+
+    private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(5), 3);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    /**
+     * Réponse reçue (code HTTP, ou 200 / 503 pour un message confirmé / refusé par le broker)
+     */
+    public void record(long intendedStartNanos, int status) {
+        recordLatency(intendedStartNanos);
+        requests.increment();
+        if (status >= 400) {
+            errors.increment();
+        }
+        outcome(String.valueOf(status)).increment();
+    }
+
+    /**
+     * Pas de réponse : exception côté client (timeout, connexion refusée...)
+     */
+    public void recordFailure(long intendedStartNanos, Throwable error) {
+        recordLatency(intendedStartNanos);
+        requests.increment();
+        errors.increment();
+        outcome(error.getClass().getSimpleName()).increment();
+    }
+
+    /**
+     * Requête jamais envoyée : trop de requêtes déjà en cours côté client
+     */
+    public void recordDropped() {
+        requests.increment();
+        errors.increment();
+        outcome("dropped").increment();
+    }
+
+    private void recordLatency(long intendedStartNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStartNanos);
+        latencies.recordValue(Math.min(Math.max(micros, 0), latencies.getHighestTrackableValue()));
+    }
+
+    private LongAdder outcome(String key) {
+        return outcomes.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Résumé pour le rapport JSON, latences en millisecondes
+     * L'histogramme complet est joint (format compressé HdrHistogram, base64) pour pouvoir
+     * fusionner ou recomparer des runs après coup
+     */
+    public Map<String, Object> toMap(double durationSeconds) {
+        long total = getRequests();
+        long failed = getErrors();
+
+        Map<String, Object> latencyMs = new LinkedHashMap<>();
+        latencyMs.put("mean", latencies.getMean() / 1000.0);
+        latencyMs.put("p50", percentileMs(50));
+        latencyMs.put("p90", percentileMs(90));
+        latencyMs.put("p99", percentileMs(99));
+        latencyMs.put("p99.9", percentileMs(99.9));
+        latencyMs.put("max", latencies.getMaxValue() / 1000.0);
+
+        Map<String, Long> byOutcome = new TreeMap<>();
+        outcomes.forEach((key, count) -> byOutcome.put(key, count.sum()));
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("requests", total);
+        map.put("errors", failed);
+        map.put("errorRate", total > 0 ? (double) failed / total : 0.0);
+        map.put("throughputPerSecond", durationSeconds > 0 ? (total - failed) / durationSeconds : 0.0);
+        map.put("latencyMs", latencyMs);
+        map.put("outcomes", byOutcome);
+        map.put("histogram", encodedHistogram());
+        return map;
+    }
+
+    public double percentileMs(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private String encodedHistogram() {
+        Histogram copy = latencies.copy();
+        ByteBuffer buffer = ByteBuffer.allocate(copy.getNeededByteBufferCapacity());
+        int length = copy.encodeIntoCompressedByteBuffer(buffer);
+        byte[] bytes = new byte[length];
+        buffer.flip();
+        buffer.get(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,111 @@
+package com.microcommerce.userservice.loadtest;
+
+import com.microcommerce.userservice.loadtest.LoadTestSettings.Operation;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Envoie les opérations du mix à débit fixe ("modèle ouvert")
+ *
+ * Les départs suivent un planning (une opération toutes les 1/rate secondes),
+ * quel que soit le temps de réponse du service : un service lent accumule des requêtes
+ * en cours au lieu de ralentir le générateur, comme avec de vrais clients.
+ * Chaque opération part sur son propre thread virtuel.
+ */
+public class LoadGenerator {
+
+    private final LoadTestSettings settings;
+    private final Workload workload;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    public LoadGenerator(LoadTestSettings settings, Workload workload, ExecutorService executor) {
+        this.settings = settings;
+        this.workload = workload;
+        this.executor = executor;
+        this.inFlight = new Semaphore(settings.getMaxInFlight());
+
+        Map<Operation, Integer> mix = settings.getMix();
+        operations = mix.keySet().toArray(new Operation[0]);
+        cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Envoie le mix pendant la durée donnée, attend les réponses en cours, retourne les résultats
+     */
+    public Map<Operation, EndpointStats> run(int seconds) {
+        Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : operations) {
+            stats.put(operation, new EndpointStats());
+        }
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRate();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Operation operation = pick();
+            EndpointStats endpoint = stats.get(operation);
+            if (!inFlight.tryAcquire()) {
+                endpoint.recordDropped();
+                continue;
+            }
+            executor.execute(() -> {
+                try {
+                    endpoint.record(intendedStart, workload.execute(operation));
+                } catch (Exception e) {
+                    endpoint.recordFailure(intendedStart, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        awaitInFlight();
+        return stats;
+    }
+
+    private Operation pick() {
+        int draw = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void awaitInFlight() {
+        try {
+            // Les requêtes encore en cours ont chacune leur propre timeout (cf. Workload)
+            if (inFlight.tryAcquire(settings.getMaxInFlight(), 2, TimeUnit.MINUTES)) {
+                inFlight.release(settings.getMaxInFlight());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.microcommerce.userservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.microcommerce.userservice.loadtest.LoadTestSettings.Operation;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rapport d'un run : JSON complet sur disque, tableau résumé sur la console
+ */
+public class LoadTestReport {
+
+    private final Map<String, Object> content = new LinkedHashMap<>();
+    private final Map<Operation, EndpointStats> stats;
+    private final double durationSeconds;
+
+    public LoadTestReport(LoadTestSettings settings, List<String> profiles, Instant startedAt,
+                          double durationSeconds, Map<Operation, EndpointStats> stats,
+                          Map<String, Object> orderConsumer) {
+        this.stats = stats;
+        this.durationSeconds = durationSeconds;
+
+        content.put("startedAt", startedAt.toString());
+        content.put("javaVersion", Runtime.version().toString());
+        content.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        content.put("profiles", profiles);
+        content.put("settings", settings.toMap());
+        content.put("measuredSeconds", durationSeconds);
+
+        long requests = 0;
+        long errors = 0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<Operation, EndpointStats> entry : stats.entrySet()) {
+            endpoints.put(entry.getKey().getName(), entry.getValue().toMap(durationSeconds));
+            requests += entry.getValue().getRequests();
+            errors += entry.getValue().getErrors();
+        }
+        Map<String, Object> total = new LinkedHashMap<>();
+        total.put("requests", requests);
+        total.put("errors", errors);
+        total.put("errorRate", requests > 0 ? (double) errors / requests : 0.0);
+        total.put("throughputPerSecond", durationSeconds > 0 ? (requests - errors) / durationSeconds : 0.0);
+        content.put("total", total);
+        content.put("endpoints", endpoints);
+        content.put("orderConsumer", orderConsumer);
+    }
+
+    public void write(Path path, ObjectMapper objectMapper) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), content);
+    }
+
+    public void printSummary(PrintStream out) {
+        out.printf("%n%-12s %10s %8s %10s %9s %9s %9s %9s%n",
+            "opération", "requêtes", "erreurs", "ok/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        stats.forEach((operation, endpoint) -> out.printf("%-12s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+            operation.getName(),
+            endpoint.getRequests(),
+            endpoint.getErrors(),
+            (endpoint.getRequests() - endpoint.getErrors()) / durationSeconds,
+            endpoint.percentileMs(50),
+            endpoint.percentileMs(99),
+            endpoint.percentileMs(99.9),
+            endpoint.getLatencies().getMaxValue() / 1000.0));
+        out.println("\nConsommation des événements commande : " + content.get("orderConsumer"));
+    }
+}
@@ -0,0 +1,252 @@
+package com.microcommerce.userservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microcommerce.userservice.UserServiceApplication;
+import com.microcommerce.userservice.config.RabbitMQConfig;
+import com.microcommerce.userservice.loadtest.LoadTestSettings.Operation;
+import com.microcommerce.userservice.loadtest.Workload.SeededUser;
+import com.microcommerce.userservice.model.User;
+import com.microcommerce.userservice.repository.UserRepository;
+import com.microcommerce.userservice.security.JwtUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test de charge de bout en bout, sans Mongo ni RabbitMQ installés
+ *
+ * 1. démarre un mongod et un broker AMQP locaux (ou utilise ceux passés en argument,
+ *    --mongodb=none : pas de base du tout, l'application tourne avec le profil in-memory)
+ * 2. démarre l'application sur un port libre, profils et propriétés au choix
+ * 3. crée les utilisateurs de test par le repository, sans passer par l'API (un seul hash pour tous)
+ * 4. chauffe, puis envoie le mix à débit fixe pendant la durée demandée
+ * 5. attend que les événements commande publiés soient consommés (débit de vidage)
+ * 6. écrit le rapport JSON et affiche le résumé
+ *
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--rate=500 --duration=120"
+ */
+public final class LoadTestRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private static final String PASSWORD = "loadtest-password";
+    private static final String[] NAMES = {
+        "Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard", "Petit", "Durand",
+        "Leroy", "Moreau", "Simon", "Laurent", "Lefebvre", "Michel", "Garcia", "David"
+    };
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final String EMBEDDED = "embedded";
+    private static final String NONE = "none";
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+
+        EmbeddedMongo mongo = null;
+        EmbeddedAmqpBroker broker = null;
+        ConfigurableApplicationContext context = null;
+        CachingConnectionFactory connectionFactory = null;
+        try {
+            String mongoAddress = settings.getMongodb();
+            if (EMBEDDED.equals(mongoAddress)) {
+                mongo = new EmbeddedMongo();
+                mongo.start();
+                mongoAddress = mongo.getHost() + ":" + mongo.getPort();
+            }
+            String rabbitAddress = settings.getRabbitmq();
+            if (EMBEDDED.equals(rabbitAddress)) {
+                broker = new EmbeddedAmqpBroker();
+                broker.start();
+                rabbitAddress = broker.getHost() + ":" + broker.getPort();
+            }
+            logger.info("MongoDB {}, broker AMQP sur {}", NONE.equals(mongoAddress) ? "absent (in-memory)" : "sur " + mongoAddress,
+                rabbitAddress);
+
+            context = startApplication(settings, mongoAddress, rabbitAddress);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            List<String> profiles = Arrays.asList(context.getEnvironment().getActiveProfiles());
+            logger.info("Application démarrée sur le port {} (profils {})", port, profiles);
+
+            List<SeededUser> users = seedUsers(context, settings.getUsers());
+            logger.info("{} utilisateurs de test créés", users.size());
+
+            connectionFactory = connectionFactory(rabbitAddress);
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(executor)
+                    .build();
+                Workload workload = new Workload(httpClient, "http://localhost:" + port, users, PASSWORD,
+                    new RabbitTemplate(connectionFactory), objectMapper);
+                LoadGenerator generator = new LoadGenerator(settings, workload, executor);
+
+                if (settings.getWarmupSeconds() > 0) {
+                    logger.info("Chauffe pendant {}s à {} req/s", settings.getWarmupSeconds(), settings.getRate());
+                    generator.run(settings.getWarmupSeconds());
+                }
+
+                logger.info("Mesure pendant {}s à {} req/s", settings.getDurationSeconds(), settings.getRate());
+                double consumedBefore = consumedOrderEvents(meterRegistry);
+                Instant startedAt = Instant.now();
+                long start = System.nanoTime();
+                Map<Operation, EndpointStats> stats = generator.run(settings.getDurationSeconds());
+                double measuredSeconds = (System.nanoTime() - start) / 1e9;
+
+                Map<String, Object> orderConsumer = awaitDrain(settings, workload, meterRegistry,
+                    consumedBefore, measuredSeconds);
+
+                LoadTestReport report = new LoadTestReport(settings, profiles, startedAt, measuredSeconds,
+                    stats, orderConsumer);
+                report.write(Path.of(settings.getReport()), objectMapper);
+                report.printSummary(System.out);
+                logger.info("Rapport écrit dans {}", settings.getReport());
+            }
+
+            if (mongo == null && !NONE.equals(settings.getMongodb())) {
+                // Base dédiée au run sur un Mongo partagé : on ne la laisse pas traîner
+                context.getBean(MongoTemplate.class).getDb().drop();
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            if (connectionFactory != null) {
+                connectionFactory.destroy();
+            }
+            if (broker != null) {
+                broker.close();
+            }
+            if (mongo != null) {
+                mongo.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestSettings settings,
+                                                                   String mongoAddress, String rabbitAddress) {
+        String[] rabbit = rabbitAddress.split(":");
+
+        List<String> args = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.rabbitmq.host=" + rabbit[0],
+            "--spring.rabbitmq.port=" + rabbit[1],
+            "--product-cache.snapshot-url="
+        ));
+        if (NONE.equals(mongoAddress)) {
+            // Ajouté aux profils actifs : combinable avec --spring.profiles.active=virtual-threads
+            args.add("--spring.profiles.include=in-memory");
+        } else {
+            String[] mongo = mongoAddress.split(":");
+            args.add("--spring.data.mongodb.host=" + mongo[0]);
+            args.add("--spring.data.mongodb.port=" + mongo[1]);
+            args.add("--spring.data.mongodb.database=userservice_loadtest_" + System.currentTimeMillis());
+        }
+        // Passés après : --spring.profiles.active=virtual-threads, etc. l'emportent
+        args.addAll(settings.getApplicationArgs());
+        return new SpringApplicationBuilder(UserServiceApplication.class).run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Insertion directe par le repository (Mongo ou profil in-memory) :
+     * passer par /register coûterait un BCrypt par utilisateur
+     */
+    private static List<SeededUser> seedUsers(ConfigurableApplicationContext context, int count) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+
+        List<SeededUser> seeded = new ArrayList<>(count);
+        List<User> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            User user = new User(NAMES[i % NAMES.length] + " " + i, "loadtest-" + i + "@example.com", passwordHash);
+            user.setCreatedAt(Instant.now());
+            batch.add(user);
+            if (batch.size() == SEED_BATCH_SIZE || i == count - 1) {
+                for (User saved : userRepository.insert(batch)) {
+                    seeded.add(new SeededUser(saved.getId(), saved.getName(), saved.getEmail(),
+                        jwtUtil.generateToken(saved.getEmail(), saved.getId(), saved.getRole())));
+                }
+                batch.clear();
+            }
+        }
+        return seeded;
+    }
+
+    private static CachingConnectionFactory connectionFactory(String rabbitAddress) {
+        String[] rabbit = rabbitAddress.split(":");
+        CachingConnectionFactory connectionFactory = new CachingConnectionFactory(rabbit[0], Integer.parseInt(rabbit[1]));
+        connectionFactory.setUsername("admin");
+        connectionFactory.setPassword("password123");
+        connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+        connectionFactory.setChannelCacheSize(50);
+        return connectionFactory;
+    }
+
+    /**
+     * Attend que les événements commande publiés pendant le test soient tous consommés
+     *
+     * Le débit de consommation pendant la mesure et le débit de vidage de l'arriéré
+     * restant à la fin disent si les consommateurs tiennent le rythme des producteurs.
+     */
+    private static Map<String, Object> awaitDrain(LoadTestSettings settings, Workload workload,
+                                                  MeterRegistry meterRegistry, double consumedBefore,
+                                                  double measuredSeconds) throws InterruptedException {
+        double consumedAtEnd = consumedOrderEvents(meterRegistry);
+        long backlogAtEnd = Math.max(0, workload.getPublishedEvents() - (long) consumedAtEnd);
+
+        long drainStart = System.nanoTime();
+        long deadline = drainStart + TimeUnit.SECONDS.toNanos(settings.getDrainTimeoutSeconds());
+        while (consumedOrderEvents(meterRegistry) < workload.getPublishedEvents() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        double drainSeconds = (System.nanoTime() - drainStart) / 1e9;
+        long remaining = Math.max(0, workload.getPublishedEvents() - (long) consumedOrderEvents(meterRegistry));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("queue", RabbitMQConfig.USER_SERVICE_ORDER_QUEUE);
+        result.put("published", workload.getPublishedEvents());
+        result.put("consumedPerSecondDuringRun", (consumedAtEnd - consumedBefore) / measuredSeconds);
+        result.put("backlogAtEnd", backlogAtEnd);
+        result.put("drainSeconds", drainSeconds);
+        result.put("drainPerSecond", backlogAtEnd > 0 && drainSeconds > 0 ? (backlogAtEnd - remaining) / drainSeconds : 0.0);
+        result.put("remaining", remaining);
+        return result;
+    }
+
+    /**
+     * Messages traités par les listeners commandes depuis le démarrage (cf. ConsumerMetrics)
+     */
+    private static double consumedOrderEvents(MeterRegistry meterRegistry) {
+        Counter counter = meterRegistry.find("rabbitmq.consumer.messages")
+            .tag("queue", RabbitMQConfig.USER_SERVICE_ORDER_QUEUE)
+            .counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
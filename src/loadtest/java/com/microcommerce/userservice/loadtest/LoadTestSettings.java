@@ -0,0 +1,144 @@
+package com.microcommerce.userservice.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Paramètres du test de charge, lus sur la ligne de commande (--cle=valeur)
+ *
+ * Les arguments inconnus (--spring.profiles.active=..., --password-encoding.algorithm=...)
+ * sont passés tels quels à l'application démarrée.
+ */
+public class LoadTestSettings {
+
+    private static final String DEFAULT_MIX = "login=5,internal=60,search=20,update=5,order-event=10";
+
+    private int rate = 200;                 // Requêtes par seconde, tous types confondus
+    private int durationSeconds = 60;       // Durée mesurée
+    private int warmupSeconds = 10;         // Chauffe avant la mesure (résultats jetés)
+    private int users = 10000;              // Utilisateurs créés avant le test
+    private int maxInFlight = 2000;         // Au-delà, les requêtes sont comptées comme abandonnées
+    private int drainTimeoutSeconds = 120;  // Attente max pour que les consommateurs vident la queue
+    private String mongodb = "embedded";    // "embedded", host:port, ou "none" (profil in-memory, sans base)
+    private String rabbitmq = "embedded";   // "embedded" ou host:port (admin/password123)
+    private String report = "target/loadtest-report.json";
+    private Map<Operation, Integer> mix = parseMix(DEFAULT_MIX);
+    private final List<String> applicationArgs = new ArrayList<>();
+
+    public static LoadTestSettings parse(String[] args) {
+        LoadTestSettings settings = new LoadTestSettings();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new RuntimeException("Argument invalide (attendu --cle=valeur): " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "rate" -> settings.rate = positive(key, value);
+                case "duration" -> settings.durationSeconds = positive(key, value);
+                case "warmup" -> settings.warmupSeconds = Integer.parseInt(value);
+                case "users" -> settings.users = positive(key, value);
+                case "max-in-flight" -> settings.maxInFlight = positive(key, value);
+                case "drain-timeout" -> settings.drainTimeoutSeconds = positive(key, value);
+                case "mongodb" -> settings.mongodb = value;
+                case "rabbitmq" -> settings.rabbitmq = value;
+                case "report" -> settings.report = value;
+                case "mix" -> settings.mix = parseMix(value);
+                default -> settings.applicationArgs.add(arg);
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * "login=5,internal=60,..." : poids relatifs de chaque opération (0 pour la retirer)
+     */
+    static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new RuntimeException("Mix invalide: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.fromName(pair[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new RuntimeException("Le mix doit contenir au moins une opération");
+        }
+        return weights;
+    }
+
+    private static int positive(String key, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new RuntimeException(key + " doit être positif: " + value);
+        }
+        return parsed;
+    }
+
+    /**
+     * Résumé des paramètres pour le rapport
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("rate", rate);
+        map.put("durationSeconds", durationSeconds);
+        map.put("warmupSeconds", warmupSeconds);
+        map.put("users", users);
+        map.put("maxInFlight", maxInFlight);
+        map.put("mongodb", mongodb);
+        map.put("rabbitmq", rabbitmq);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        mix.forEach((operation, weight) -> weights.put(operation.getName(), weight));
+        map.put("mix", weights);
+        map.put("applicationArgs", applicationArgs);
+        return map;
+    }
+
+    public int getRate() { return rate; }
+    public int getDurationSeconds() { return durationSeconds; }
+    public int getWarmupSeconds() { return warmupSeconds; }
+    public int getUsers() { return users; }
+    public int getMaxInFlight() { return maxInFlight; }
+    public int getDrainTimeoutSeconds() { return drainTimeoutSeconds; }
+    public String getMongodb() { return mongodb; }
+    public String getRabbitmq() { return rabbitmq; }
+    public String getReport() { return report; }
+    public Map<Operation, Integer> getMix() { return mix; }
+    public List<String> getApplicationArgs() { return applicationArgs; }
+
+    /**
+     * Opérations du mix
+     */
+    public enum Operation {
+        LOGIN("login"),
+        INTERNAL("internal"),
+        SEARCH("search"),
+        UPDATE("update"),
+        ORDER_EVENT("order-event");
+
+        private final String name;
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        static Operation fromName(String name) {
+            for (Operation operation : values()) {
+                if (operation.name.equals(name)) {
+                    return operation;
+                }
+            }
+            throw new RuntimeException("Opération inconnue: " + name);
+        }
+    }
+}
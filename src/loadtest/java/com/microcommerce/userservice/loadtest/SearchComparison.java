@@ -0,0 +1,394 @@
+package com.microcommerce.userservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.microcommerce.userservice.model.User;
+import com.microcommerce.userservice.repository.UserSearchRepository;
+import com.microcommerce.userservice.repository.UserSearchRepositoryImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Recherche par nom sur une grosse collection : ancienne regex contre les index (préfixe, texte)
+ *
+ * 1. remplit une base dédiée jusqu'à --users utilisateurs (insertions en bulk, sans l'application ;
+ *    la base est gardée d'un run à l'autre, passer de 1M à 10M n'insère que la différence)
+ * 2. crée les index déclarés sur User, comme auto-index-creation au démarrage de l'application
+ * 3. pour chaque scénario, envoie les requêtes une par une et mesure leur latence
+ *    - regex : l'ancienne requête {'name': {'$regex': saisie, '$options': 'i'}} triée par _id
+ *    - prefix / text : UserSearchRepositoryImpl, le code utilisé par /api/users/search
+ *    sur trois jeux de saisies : début de prénom (3 lettres), nom de famille entier, mot absent
+ *    (le pire cas de la regex : rien ne l'arrête avant la fin de la collection)
+ * 4. écrit le rapport JSON (latences + explain : index utilisé, clés et documents lus) et le résumé
+ *
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.microcommerce.userservice.loadtest.SearchComparison \
+ *     -Dloadtest.args="--users=1000000"
+ */
+public final class SearchComparison {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchComparison.class);
+
+    private static final String[] FIRST_NAMES = {
+        "Jean", "Marie", "Pierre", "Nathalie", "Michel", "Isabelle", "Philippe", "Sylvie", "Alain", "Catherine",
+        "Nicolas", "Françoise", "Christophe", "Sandrine", "Stéphane", "Véronique", "Laurent", "Céline", "Frédéric",
+        "Valérie", "Julien", "Camille", "Thomas", "Léa", "Antoine", "Chloé", "Hugo", "Manon", "Éloïse", "Lucas"
+    };
+    private static final String[] LAST_NAMES = {
+        "Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard", "Petit", "Durand", "Leroy", "Moreau",
+        "Simon", "Laurent", "Lefebvre", "Michel", "Garcia", "David", "Bertrand", "Roux", "Vincent", "Fournier",
+        "Morel", "Girard", "André", "Lefèvre", "Mercier", "Dupont", "Lambert", "Bonnet", "François", "Martinez"
+    };
+    private static final String COLLECTION = "users";
+    private static final String EMBEDDED = "embedded";
+    private static final int SEED_BATCH_SIZE = 10000;
+    private static final int PAGE_SIZE = 20;
+
+    // Paramètres (--cle=valeur)
+    private int users = 1_000_000;                  // Taille visée de la collection (1M, 10M...)
+    private int queries = 200;                      // Requêtes mesurées par scénario
+    private int warmup = 20;                        // Requêtes de chauffe par scénario (non comptées)
+    private int maxSecondsPerScenario = 120;        // La regex sur 10M peut prendre des secondes par requête
+    private String mongodb = EMBEDDED;              // "embedded" ou host:port
+    private String database = "userservice_searchbench";
+    private boolean drop = false;                   // Supprimer la base à la fin (sinon gardée pour le run suivant)
+    private String report = "target/search-comparison.json";
+
+    private SearchComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        SearchComparison comparison = parse(args);
+
+        EmbeddedMongo mongo = null;
+        MongoClient client = null;
+        try {
+            String mongoAddress = comparison.mongodb;
+            if (EMBEDDED.equals(mongoAddress)) {
+                mongo = new EmbeddedMongo();
+                mongo.start();
+                mongoAddress = mongo.getHost() + ":" + mongo.getPort();
+            }
+            logger.info("MongoDB sur {}, base {}", mongoAddress, comparison.database);
+
+            client = MongoClients.create("mongodb://" + mongoAddress);
+            MongoTemplate mongoTemplate = new MongoTemplate(client, comparison.database);
+            comparison.run(mongoTemplate);
+
+            if (comparison.drop) {
+                mongoTemplate.getDb().drop();
+            }
+        } finally {
+            if (client != null) {
+                client.close();
+            }
+            if (mongo != null) {
+                mongo.close();
+            }
+        }
+    }
+
+    private void run(MongoTemplate mongoTemplate) throws Exception {
+        seed(mongoTemplate);
+        ensureIndexes(mongoTemplate);
+
+        // Le vrai repository de recherche, avec son MongoTemplate injecté comme dans l'application
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(MongoTemplate.class, () -> mongoTemplate);
+            context.registerBean(UserSearchRepositoryImpl.class);
+            context.refresh();
+            UserSearchRepository search = context.getBean(UserSearchRepositoryImpl.class);
+
+            Instant startedAt = Instant.now();
+            Map<String, Object> scenarios = new LinkedHashMap<>();
+            List<String[]> summary = new ArrayList<>();
+            for (Scenario scenario : scenarios(mongoTemplate, search)) {
+                logger.info("Scénario {}", scenario.name());
+                Map<String, Object> result = measure(scenario);
+                result.put("explain", explain(mongoTemplate, scenario));
+                scenarios.put(scenario.name(), result);
+                summary.add(summaryRow(scenario.name(), result));
+            }
+
+            Map<String, Object> content = new LinkedHashMap<>();
+            content.put("startedAt", startedAt.toString());
+            content.put("javaVersion", Runtime.version().toString());
+            content.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+            content.put("users", mongoTemplate.getCollection(COLLECTION).estimatedDocumentCount());
+            content.put("queriesPerScenario", queries);
+            content.put("pageSize", PAGE_SIZE);
+            content.put("scenarios", scenarios);
+
+            Path path = Path.of(report).toAbsolutePath();
+            Files.createDirectories(path.getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), content);
+            printSummary(System.out, summary);
+            logger.info("Rapport écrit dans {}", report);
+        }
+    }
+
+    /**
+     * Scénarios mesurés : même saisie, ancienne regex puis recherche indexée
+     */
+    private List<Scenario> scenarios(MongoTemplate mongoTemplate, UserSearchRepository search) {
+        IntFunction<String> prefixInput = i -> FIRST_NAMES[i % FIRST_NAMES.length].substring(0, 3);
+        IntFunction<String> wordInput = i -> LAST_NAMES[i % LAST_NAMES.length];
+        IntFunction<String> missingInput = i -> "zqx" + i; // Aucun nom généré ne contient "zqx"
+
+        return List.of(
+            new Scenario("regex-prefix", prefixInput, SearchComparison::regexQuery,
+                input -> mongoTemplate.find(regexQuery(input), User.class).size()),
+            new Scenario("prefix", prefixInput, SearchComparison::prefixQuery,
+                input -> search.searchByNamePrefix(User.normalizeName(input), null, null, PAGE_SIZE + 1).size()),
+            new Scenario("regex-word", wordInput, SearchComparison::regexQuery,
+                input -> mongoTemplate.find(regexQuery(input), User.class).size()),
+            new Scenario("text-word", wordInput, null,
+                input -> search.searchByNameTokens(List.of(User.normalizeName(input)), 0, PAGE_SIZE + 1).size()),
+            new Scenario("regex-missing", missingInput, SearchComparison::regexQuery,
+                input -> mongoTemplate.find(regexQuery(input), User.class).size()),
+            new Scenario("prefix-missing", missingInput, SearchComparison::prefixQuery,
+                input -> search.searchByNamePrefix(User.normalizeName(input), null, null, PAGE_SIZE + 1).size()),
+            new Scenario("text-missing", missingInput, null,
+                input -> search.searchByNameTokens(List.of(User.normalizeName(input)), 0, PAGE_SIZE + 1).size())
+        );
+    }
+
+    /**
+     * L'ancienne requête de UserRepository.searchByNameAfter (première page)
+     * La saisie n'était pas échappée : les saisies générées ici n'ont pas de caractères spéciaux
+     */
+    private static Query regexQuery(String input) {
+        Query query = new Query(Criteria.where("name").regex(input, "i"))
+            .with(Sort.by(Sort.Direction.ASC, "id"))
+            .limit(PAGE_SIZE + 1);
+        query.fields().include("name", "email", "role");
+        return query;
+    }
+
+    /**
+     * Même requête que UserSearchRepositoryImpl.prefixQuery, pour l'explain seulement
+     * (la mesure passe par le repository ; pas d'échappement, les saisies générées sont des lettres)
+     */
+    private static Query prefixQuery(String input) {
+        return new Query(Criteria.where("nameLower").regex("^" + User.normalizeName(input)))
+            .with(Sort.by(Sort.Direction.ASC, "nameLower", "id"))
+            .limit(PAGE_SIZE + 1);
+    }
+
+    /**
+     * Requêtes une par une (latence d'une requête seule, pas de concurrence),
+     * jusqu'à --queries ou --max-seconds-per-scenario
+     */
+    private Map<String, Object> measure(Scenario scenario) {
+        for (int i = 0; i < warmup; i++) {
+            scenario.execute().apply(scenario.input().apply(i));
+        }
+
+        EndpointStats stats = new EndpointStats();
+        long totalResults = 0;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(maxSecondsPerScenario);
+        for (int i = 0; i < queries && System.nanoTime() < deadline; i++) {
+            String input = scenario.input().apply(warmup + i);
+            long queryStart = System.nanoTime();
+            try {
+                totalResults += scenario.execute().apply(input);
+                stats.record(queryStart, 200);
+            } catch (RuntimeException e) {
+                stats.recordFailure(queryStart, e);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> result = stats.toMap(seconds);
+        result.put("meanResults", stats.getRequests() > 0 ? (double) totalResults / stats.getRequests() : 0.0);
+        return result;
+    }
+
+    /**
+     * Plan gagnant et volume lu pour une saisie du scénario (explain executionStats)
+     * Ne dépend pas de la machine : COLLSCAN et totalDocsExamined ~ taille de la collection pour la regex
+     */
+    private Map<String, Object> explain(MongoTemplate mongoTemplate, Scenario scenario) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        String input = scenario.input().apply(0);
+        if (scenario.query() == null) {
+            result.put("input", input);
+            result.put("stages", List.of("TEXT")); // $text passe forcément par l'index texte
+            return result;
+        }
+        // Noms de propriétés Java -> champs Mongo ("id" -> "_id"), comme le fait find()
+        Query query = scenario.query().apply(input);
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+            .getRequiredPersistentEntity(User.class);
+        Document find = new Document("find", COLLECTION)
+            .append("filter", mapper.getMappedObject(query.getQueryObject(), entity))
+            .append("sort", mapper.getMappedSort(query.getSortObject(), entity))
+            .append("limit", PAGE_SIZE + 1);
+        Document explained = mongoTemplate.getDb().runCommand(
+            new Document("explain", find).append("verbosity", "executionStats"));
+
+        Document stats = explained.get("executionStats", Document.class);
+        result.put("input", input);
+        result.put("stages", stages(explained.get("queryPlanner", Document.class).get("winningPlan", Document.class)));
+        result.put("totalKeysExamined", stats.get("totalKeysExamined"));
+        result.put("totalDocsExamined", stats.get("totalDocsExamined"));
+        result.put("executionTimeMillis", stats.get("executionTimeMillis"));
+        return result;
+    }
+
+    /**
+     * Étapes du plan, de la racine aux feuilles : ["LIMIT", "FETCH", "IXSCAN"], ["SORT", "COLLSCAN"]...
+     */
+    private static List<String> stages(Document plan) {
+        List<String> stages = new ArrayList<>();
+        Document current = plan;
+        while (current != null) {
+            // Mongo 7 enveloppe parfois le plan dans queryPlan (moteur SBE)
+            Document inner = current.get("queryPlan", Document.class);
+            if (inner != null) {
+                current = inner;
+            }
+            stages.add(current.getString("stage"));
+            current = current.get("inputStage", Document.class);
+        }
+        return stages;
+    }
+
+    /**
+     * Complète la collection jusqu'à --users (les utilisateurs déjà là sont gardés)
+     * Noms "Prénom Nom" tirés avec une graine fixe : mêmes données d'un run à l'autre
+     */
+    private void seed(MongoTemplate mongoTemplate) {
+        long existing = mongoTemplate.getCollection(COLLECTION).countDocuments();
+        if (existing >= users) {
+            logger.info("{} utilisateurs déjà présents", existing);
+            return;
+        }
+        logger.info("Création de {} utilisateurs ({} déjà présents)", users - existing, existing);
+
+        Random random = new Random(42 + existing);
+        Instant createdAt = Instant.now();
+        long start = System.nanoTime();
+        List<User> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (long i = existing; i < users; i++) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            // Pas besoin d'un vrai hash : la recherche ne lit pas le mot de passe
+            User user = new User(name, "search-" + i + "@example.com", "not-a-hash");
+            user.setCreatedAt(createdAt);
+            batch.add(user);
+            if (batch.size() == SEED_BATCH_SIZE || i == users - 1) {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(batch).execute();
+                batch.clear();
+                if ((i + 1 - existing) % 1_000_000 == 0) {
+                    logger.info("{} utilisateurs", i + 1);
+                }
+            }
+        }
+        logger.info("Insertion terminée en {}s", (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    /**
+     * Index déclarés sur User (nameLower/_id, texte sur name, email...), créés après l'insertion :
+     * plus rapide que de les maintenir pendant le bulk
+     */
+    private static void ensureIndexes(MongoTemplate mongoTemplate) {
+        long start = System.nanoTime();
+        IndexOperations indexOperations = mongoTemplate.indexOps(User.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+            .resolveIndexFor(User.class)
+            .forEach(indexOperations::ensureIndex);
+        logger.info("Index prêts en {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static String[] summaryRow(String name, Map<String, Object> result) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> latency = (Map<String, Object>) result.get("latencyMs");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> explain = (Map<String, Object>) result.get("explain");
+        Object docs = explain.get("totalDocsExamined");
+        return new String[]{
+            name,
+            String.valueOf(result.get("requests")),
+            String.format("%.2f", (Double) latency.get("p50")),
+            String.format("%.2f", (Double) latency.get("p99")),
+            String.format("%.2f", (Double) latency.get("max")),
+            docs != null ? docs.toString() : "-",
+            String.valueOf(explain.get("stages"))
+        };
+    }
+
+    private static void printSummary(PrintStream out, List<String[]> rows) {
+        out.printf("%n%-15s %9s %10s %10s %10s %12s  %s%n",
+            "scénario", "requêtes", "p50 ms", "p99 ms", "max ms", "docs lus", "plan");
+        for (String[] row : rows) {
+            out.printf("%-15s %9s %10s %10s %10s %12s  %s%n", (Object[]) row);
+        }
+    }
+
+    private static SearchComparison parse(String[] args) {
+        SearchComparison comparison = new SearchComparison();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new RuntimeException("Argument invalide (attendu --cle=valeur): " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+                case "users" -> comparison.users = positive(key, value);
+                case "queries" -> comparison.queries = positive(key, value);
+                case "warmup" -> comparison.warmup = Integer.parseInt(value);
+                case "max-seconds-per-scenario" -> comparison.maxSecondsPerScenario = positive(key, value);
+                case "mongodb" -> comparison.mongodb = value;
+                case "database" -> comparison.database = value;
+                case "drop" -> comparison.drop = Boolean.parseBoolean(value);
+                case "report" -> comparison.report = value;
+                default -> throw new RuntimeException("Option inconnue: " + arg);
+            }
+        }
+        return comparison;
+    }
+
+    private static int positive(String key, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new RuntimeException(key + " doit être positif: " + value);
+        }
+        return parsed;
+    }
+
+    /**
+     * Un scénario : saisies générées, requête exécutée (nombre de résultats), requête Mongo pour l'explain
+     * (null pour $text, dont le plan est toujours l'index texte)
+     */
+    private record Scenario(String name, IntFunction<String> input,
+                            Function<String, Query> query, Function<String, Integer> execute) {
+    }
+}
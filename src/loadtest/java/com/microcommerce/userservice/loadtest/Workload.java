@@ -0,0 +1,175 @@
+package com.microcommerce.userservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microcommerce.userservice.config.RabbitMQConfig;
+import com.microcommerce.userservice.event.OrderEvent;
+import com.microcommerce.userservice.loadtest.LoadTestSettings.Operation;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Une opération du mix = une requête HTTP (ou un message RabbitMQ), sur un utilisateur pris au hasard
+ *
+ * - login : POST /api/auth/login (vérification BCrypt)
+ * - internal : GET /api/users/internal/{id} (appel de service à service, en cache)
+ * - search : GET /api/users/search?name=... (préfixe de 3 lettres)
+ * - update : PUT /api/users/{id} (nouveau hash, outbox, invalidation du cache)
+ * - order-event : OrderEvent publié sur order.exchange, latence jusqu'au confirm du broker
+ *
+ * Retourne le code HTTP, ou 200 / 503 pour un message confirmé / refusé.
+ */
+public class Workload {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final long CONFIRM_TIMEOUT_MS = 5000;
+    private static final double STATUS_UPDATE_RATIO = 0.2;
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final List<SeededUser> users;
+    private final String password;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong nextOrderId = new AtomicLong(1);
+    private final LongAdder publishedEvents = new LongAdder();
+
+    public Workload(HttpClient httpClient, String baseUrl, List<SeededUser> users, String password,
+                    RabbitTemplate rabbitTemplate, ObjectMapper objectMapper) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.password = password;
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public int execute(Operation operation) throws Exception {
+        return switch (operation) {
+            case LOGIN -> login();
+            case INTERNAL -> internal();
+            case SEARCH -> search();
+            case UPDATE -> update();
+            case ORDER_EVENT -> publishOrderEvent();
+        };
+    }
+
+    /**
+     * Messages confirmés par le broker depuis le début (chauffe comprise)
+     */
+    public long getPublishedEvents() {
+        return publishedEvents.sum();
+    }
+
+    private int login() throws Exception {
+        SeededUser user = randomUser();
+        Map<String, String> body = Map.of("email", user.email(), "password", password);
+        return send(HttpRequest.newBuilder(uri("/api/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))));
+    }
+
+    private int internal() throws Exception {
+        SeededUser user = randomUser();
+        return send(authorized(HttpRequest.newBuilder(uri("/api/users/internal/" + user.id())), randomUser())
+            .GET());
+    }
+
+    private int search() throws Exception {
+        String prefix = randomUser().name().substring(0, 3);
+        return send(authorized(HttpRequest.newBuilder(
+                uri("/api/users/search?size=20&name=" + URLEncoder.encode(prefix, StandardCharsets.UTF_8))),
+            randomUser()).GET());
+    }
+
+    private int update() throws Exception {
+        SeededUser user = randomUser();
+        // Même email (pas de conflit d'index unique), nom qui change un peu
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("name", user.name() + " " + ThreadLocalRandom.current().nextInt(100));
+        body.put("email", user.email());
+        body.put("password", password);
+        return send(authorized(HttpRequest.newBuilder(uri("/api/users/" + user.id())), user)
+            .header("Content-Type", "application/json")
+            .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))));
+    }
+
+    /**
+     * Surtout des créations de commandes, parfois un changement de statut d'une commande déjà créée
+     * L'order-service identifie les utilisateurs par un ID numérique
+     */
+    private int publishOrderEvent() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long lastOrderId = nextOrderId.get() - 1;
+        long userId = 1 + random.nextInt(users.size());
+
+        OrderEvent event;
+        String routingKey;
+        if (lastOrderId > 0 && random.nextDouble() < STATUS_UPDATE_RATIO) {
+            event = new OrderEvent(1 + random.nextLong(lastOrderId), userId, "SHIPPED", null, null,
+                "ORDER_STATUS_UPDATED");
+            routingKey = "order.updated"; // Un seul mot après "order." (binding order.*)
+        } else {
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(1000, 50000), 2);
+            event = new OrderEvent(nextOrderId.getAndIncrement(), userId, "CREATED", amount, List.of(),
+                "ORDER_CREATED");
+            routingKey = "order.created";
+        }
+
+        // Pas de header de type : le listener déduit OrderEvent de sa signature, comme pour l'order-service
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setMessageId(UUID.randomUUID().toString());
+        Message message = new Message(objectMapper.writeValueAsBytes(event), properties);
+
+        CorrelationData correlation = new CorrelationData(properties.getMessageId());
+        rabbitTemplate.send(RabbitMQConfig.ORDER_EXCHANGE, routingKey, message, correlation);
+        if (!correlation.getFuture().get(CONFIRM_TIMEOUT_MS, TimeUnit.MILLISECONDS).isAck()) {
+            return 503;
+        }
+        publishedEvents.increment();
+        return 200;
+    }
+
+    private int send(HttpRequest.Builder request) throws Exception {
+        return httpClient.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.discarding())
+            .statusCode();
+    }
+
+    private HttpRequest.Builder authorized(HttpRequest.Builder request, SeededUser caller) {
+        return request.header("Authorization", "Bearer " + caller.token());
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private SeededUser randomUser() {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    /**
+     * Utilisateur créé avant le test, avec un token déjà signé
+     */
+    public record SeededUser(String id, String name, String email, String token) {
+    }
+}
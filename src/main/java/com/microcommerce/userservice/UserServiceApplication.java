@@ -2,7 +2,7 @@ package com.microcommerce.userservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Classe principale pour démarrer le User Service
@@ -14,7 +14,7 @@ import org.springframework.data.mongodb.config.EnableMongoAuditing;
  * - Sécurité et autorisation
  */
 @SpringBootApplication
-@EnableMongoAuditing // Pour les timestamps automatiques
+@EnableScheduling // Recalage périodique des statistiques
 public class UserServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,17 @@
+package com.microcommerce.userservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+
+/**
+ * Audit Mongo pour les timestamps automatiques (createdAt des utilisateurs)
+ *
+ * Pas avec le profil in-memory : pas de contexte de mapping Mongo,
+ * InMemoryUserRepository remplit createdAt lui-même
+ */
+@Configuration
+@Profile("!in-memory")
+@EnableMongoAuditing
+public class MongoAuditingConfig {
+}
@@ -0,0 +1,26 @@
+package com.microcommerce.userservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+/**
+ * Transactions Mongo pour écrire l'utilisateur et son événement outbox ensemble
+ * 
+ * Les transactions demandent un replica set : désactivé par défaut pour le Mongo
+ * standalone de dev (les deux écritures restent alors séquentielles, cf. UserWriteTransaction)
+ * Sans objet avec le profil in-memory (pas de base)
+ */
+@Configuration
+@Profile("!in-memory")
+@ConditionalOnProperty(name = "user-events.outbox.transactions", havingValue = "true")
+public class MongoTransactionConfig {
+    
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
+}
@@ -0,0 +1,57 @@
+package com.microcommerce.userservice.config;
+
+import com.microcommerce.userservice.event.ProductEvent;
+import com.microcommerce.userservice.service.ProductCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Préchauffe le cache produits au démarrage avec un snapshot du catalogue
+ * 
+ * Sans ça, le cache ne connaît que les produits modifiés depuis le démarrage.
+ * Désactivé si product-cache.snapshot-url est vide ; un échec n'empêche pas le démarrage
+ * (les événements rempliront le cache au fil de l'eau, et un admin peut pousser un snapshot).
+ */
+@Component
+public class ProductCacheWarmup implements CommandLineRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductCacheWarmup.class);
+    
+    @Value("${product-cache.snapshot-url:}")
+    private String snapshotUrl;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private RestClient.Builder restClientBuilder;
+    
+    @Override
+    public void run(String... args) {
+        if (snapshotUrl == null || snapshotUrl.isBlank()) {
+            return;
+        }
+        
+        Instant snapshotTakenAt = Instant.now();
+        try {
+            List<ProductEvent> snapshot = restClientBuilder.build()
+                .get()
+                .uri(snapshotUrl)
+                .retrieve()
+                .body(new ParameterizedTypeReference<List<ProductEvent>>() {});
+            int loaded = snapshot != null ? productCache.loadSnapshot(snapshot, snapshotTakenAt) : 0;
+            logger.info("Cache produits préchauffé: {} produits depuis {}", loaded, snapshotUrl);
+        } catch (RuntimeException e) {
+            logger.warn("Préchauffage du cache produits impossible depuis {}: {}", snapshotUrl, e.getMessage());
+        }
+    }
+}
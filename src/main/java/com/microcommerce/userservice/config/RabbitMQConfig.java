@@ -1,12 +1,19 @@
 package com.microcommerce.userservice.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Configuration RabbitMQ pour le service utilisateur
  * 
@@ -30,9 +37,15 @@ public class RabbitMQConfig {
     public static final String USER_CREATED_ROUTING_KEY = "user.created";
     public static final String USER_UPDATED_ROUTING_KEY = "user.updated";
     public static final String USER_DELETED_ROUTING_KEY = "user.deleted";
+    public static final String USER_ALL_ROUTING_KEY = "user.*";
     
     // Routing keys pour écouter tous les événements produits
     public static final String PRODUCT_ALL_ROUTING_KEY = "product.*";
+    
+    // Messages en échec : exchange des messages rejetés, queues de retry (TTL) et parking lot
+    public static final String DEAD_LETTER_EXCHANGE = "user-service.dlx";
+    private static final String RETRY_QUEUE_SUFFIX = ".retry.";
+    private static final String PARKING_LOT_SUFFIX = ".parking-lot";
 
     /**
      * Exchange principal pour les événements produits (déclaré aussi côté product-service)
@@ -47,7 +60,7 @@ public class RabbitMQConfig {
      */
     @Bean
     public Queue userServiceProductQueue() {
-        return QueueBuilder.durable(USER_SERVICE_PRODUCT_QUEUE).build();
+        return consumerQueue(USER_SERVICE_PRODUCT_QUEUE);
     }
 
     /**
@@ -68,11 +81,31 @@ public class RabbitMQConfig {
         return new TopicExchange(USER_EXCHANGE);
     }
     
+    /**
+     * Queue anonyme (une par instance, supprimée à l'arrêt) pour recevoir nos propres
+     * événements utilisateurs et invalider le cache local sur tous les replicas
+     */
+    @Bean
+    public AnonymousQueue userCacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+    
+    @Bean
+    public Binding userCacheInvalidationBinding() {
+        return BindingBuilder
+            .bind(userCacheInvalidationQueue())
+            .to(userExchange())
+            .with(USER_ALL_ROUTING_KEY);
+    }
+    
     // Configuration pour écouter les événements commandes
     public static final String ORDER_EXCHANGE = "order.exchange";
     public static final String ORDER_ALL_ROUTING_KEY = "order.*";
     public static final String USER_SERVICE_ORDER_QUEUE = "user-service.order.queue";
     
+    // Queues consommées par le user-service (avec retry et parking lot)
+    public static final List<String> CONSUMER_QUEUES = List.of(USER_SERVICE_ORDER_QUEUE, USER_SERVICE_PRODUCT_QUEUE);
+    
     @Bean
     public TopicExchange orderExchange() {
         return new TopicExchange(ORDER_EXCHANGE);
@@ -80,7 +113,59 @@ public class RabbitMQConfig {
     
     @Bean
     public Queue userServiceOrderQueue() {
-        return new Queue(USER_SERVICE_ORDER_QUEUE, true);
+        return consumerQueue(USER_SERVICE_ORDER_QUEUE);
+    }
+    
+    /**
+     * Queue consommée par le user-service : un message rejeté (illisible, erreur non gérée)
+     * part dans le DLX puis dans le parking lot de la queue au lieu d'être perdu
+     * 
+     * Attention : RabbitMQ refuse de redéclarer une queue existante avec d'autres arguments,
+     * les queues créées avant le DLX doivent être supprimées (ou migrées) une fois
+     */
+    private Queue consumerQueue(String name) {
+        return QueueBuilder.durable(name)
+            .deadLetterExchange(DEAD_LETTER_EXCHANGE)
+            .deadLetterRoutingKey(name)
+            .build();
+    }
+    
+    /**
+     * Topologie des messages en échec, pour chaque queue consommée :
+     * - <queue>.retry.N : pas de consommateur, le message y attend retry-delays-ms[N-1]
+     *   puis repart dans la queue d'origine (dead-letter vers l'exchange par défaut)
+     * - <queue>.parking-lot : messages abandonnés (retries épuisés ou rejetés), à inspecter
+     *   et rejouer via /api/users/admin/dead-letters
+     */
+    @Bean
+    public Declarables consumerDeadLetterTopology(
+            @Value("${dead-letters.retry-delays-ms:1000,10000,60000}") long[] retryDelaysMs) {
+        DirectExchange deadLetterExchange = new DirectExchange(DEAD_LETTER_EXCHANGE);
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(deadLetterExchange);
+        
+        for (String queue : CONSUMER_QUEUES) {
+            Queue parkingLot = QueueBuilder.durable(parkingLotQueue(queue)).build();
+            declarables.add(parkingLot);
+            declarables.add(BindingBuilder.bind(parkingLot).to(deadLetterExchange).with(queue));
+            
+            for (int attempt = 1; attempt <= retryDelaysMs.length; attempt++) {
+                declarables.add(QueueBuilder.durable(retryQueue(queue, attempt))
+                    .ttl((int) retryDelaysMs[attempt - 1])
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(queue)
+                    .build());
+            }
+        }
+        return new Declarables(declarables);
+    }
+    
+    public static String retryQueue(String queue, int attempt) {
+        return queue + RETRY_QUEUE_SUFFIX + attempt;
+    }
+    
+    public static String parkingLotQueue(String queue) {
+        return queue + PARKING_LOT_SUFFIX;
     }
     
     @Bean
@@ -91,21 +176,77 @@ public class RabbitMQConfig {
             .with(ORDER_ALL_ROUTING_KEY);
     }
 
+    /**
+     * Containers des listeners commandes : plusieurs consommateurs, prefetch élevé
+     * et réception par lots (handler List<OrderEvent>)
+     * Part des réglages spring.rabbitmq.listener.simple.* puis applique rabbitmq-consumers.order.*
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory orderListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${rabbitmq-consumers.order.concurrency:2}") int concurrency,
+            @Value("${rabbitmq-consumers.order.max-concurrency:8}") int maxConcurrency,
+            @Value("${rabbitmq-consumers.order.prefetch:250}") int prefetch,
+            @Value("${rabbitmq-consumers.order.batch-size:50}") int batchSize,
+            @Value("${rabbitmq-consumers.order.batch-receive-timeout-ms:200}") long batchReceiveTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        // Une exception qui remonte jusqu'au container : direction le parking lot, pas de requeue en boucle
+        factory.setDefaultRequeueRejected(false);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        factory.setPrefetchCount(prefetch);
+        // Un lot = jusqu'à batch-size messages, ou ce qui est arrivé après batch-receive-timeout-ms
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(batchReceiveTimeoutMs);
+        return factory;
+    }
+    
+    /**
+     * Containers des listeners produits : plusieurs consommateurs et prefetch réglable,
+     * un message à la fois
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory productListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${rabbitmq-consumers.product.concurrency:1}") int concurrency,
+            @Value("${rabbitmq-consumers.product.max-concurrency:4}") int maxConcurrency,
+            @Value("${rabbitmq-consumers.product.prefetch:100}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        // Une exception qui remonte jusqu'au container : direction le parking lot, pas de requeue en boucle
+        factory.setDefaultRequeueRejected(false);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        factory.setPrefetchCount(prefetch);
+        return factory;
+    }
+
     /**
      * Convertisseur JSON pour désérialiser les messages
+     * ObjectMapper de Spring Boot : dates java.time (timestamp des OrderEvent) en ISO,
+     * un new ObjectMapper() nu refuse les LocalDateTime
      */
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public Jackson2JsonMessageConverter messageConverter(ObjectMapper objectMapper) {
+        return new Jackson2JsonMessageConverter(objectMapper);
     }
 
     /**
      * Template RabbitMQ avec le convertisseur JSON
+     * mandatory : un message routé vers aucune queue revient dans son CorrelationData
+     * (compté par ConfirmingPublisher) au lieu de disparaître sans bruit
      */
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory,
+                                         Jackson2JsonMessageConverter messageConverter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
-        template.setMessageConverter(messageConverter());
+        template.setMessageConverter(messageConverter);
+        template.setMandatory(true);
         return template;
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.microcommerce.userservice.config;
+
+import com.microcommerce.userservice.model.User;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Remplit nameLower pour les utilisateurs créés avant la recherche indexée
+ * 
+ * Sans ça, les anciens documents n'apparaissent pas dans la recherche par préfixe.
+ * Ne fait rien une fois que tout le monde a son nameLower.
+ * Inutile avec le profil in-memory (les utilisateurs ne sont pas dans Mongo).
+ */
+@Component
+@Profile("!in-memory")
+public class UserNameBackfill implements CommandLineRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(UserNameBackfill.class);
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Override
+    public void run(String... args) {
+        Query missing = new Query(Criteria.where("nameLower").exists(false)).limit(BATCH_SIZE);
+        missing.fields().include("name");
+        
+        long updated = 0;
+        List<Document> batch;
+        while (!(batch = mongoTemplate.find(missing, Document.class, "users")).isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "users");
+            for (Document doc : batch) {
+                bulk.updateOne(
+                    Query.query(Criteria.where("_id").is(doc.get("_id"))),
+                    Update.update("nameLower", User.normalizeName(doc.getString("name")))
+                );
+            }
+            updated += bulk.execute().getModifiedCount();
+        }
+        
+        if (updated > 0) {
+            logger.info("nameLower rempli pour {} utilisateurs existants", updated);
+        }
+    }
+}
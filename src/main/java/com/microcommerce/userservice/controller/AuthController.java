@@ -5,9 +5,12 @@ import com.microcommerce.userservice.dto.LoginRequest;
 import com.microcommerce.userservice.dto.LoginResponse;
 import com.microcommerce.userservice.dto.RegisterRequest;
 import com.microcommerce.userservice.service.AuthService;
+import com.microcommerce.userservice.service.EmailAlreadyUsedException;
+import com.microcommerce.userservice.service.PasswordHashingRejectedException;
 import com.microcommerce.userservice.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -40,6 +43,14 @@ public class AuthController {
         try {
             AuthResponse response = userService.register(request);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingRejectedException e) {
+            throw e; // 503 + Retry-After, cf. PasswordHashingExceptionHandler
+        } catch (EmailAlreadyUsedException e) {
+            // Refusé par l'index unique sur l'email
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", "Email déjà utilisé",
+                "message", e.getMessage()
+            ));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "error", "Erreur lors de l'inscription",
@@ -57,6 +68,8 @@ public class AuthController {
         try {
             LoginResponse response = authService.login(request);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingRejectedException e) {
+            throw e; // 503 + Retry-After, cf. PasswordHashingExceptionHandler
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "error", "Erreur lors de la connexion",
@@ -0,0 +1,81 @@
+package com.microcommerce.userservice.controller;
+
+import com.microcommerce.userservice.dto.ParkedMessage;
+import com.microcommerce.userservice.service.DeadLetterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Administration des messages en échec (parking lots des queues order et product)
+ * 
+ * Sous /api/users/admin/** donc réservé aux admins (cf. SecurityConfig)
+ */
+@RestController
+@RequestMapping("/api/users/admin/dead-letters")
+public class DeadLetterController {
+    
+    private static final int MAX_LIMIT = 1000;
+    
+    @Autowired
+    private DeadLetterService deadLetterService;
+    
+    /**
+     * Nombre de messages parqués par queue
+     * GET /api/users/admin/dead-letters
+     */
+    @GetMapping
+    public ResponseEntity<?> countParked() {
+        try {
+            return ResponseEntity.ok(deadLetterService.countParked());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors de la lecture des parking lots",
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Aperçu des messages parqués d'une queue (order ou product)
+     * GET /api/users/admin/dead-letters/{queue}?limit=20
+     */
+    @GetMapping("/{queue}")
+    public ResponseEntity<?> peek(
+            @PathVariable String queue,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        try {
+            List<ParkedMessage> messages = deadLetterService.peek(queue, Math.min(Math.max(limit, 1), MAX_LIMIT));
+            return ResponseEntity.ok(messages);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors de la lecture du parking lot",
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Renvoie des messages parqués dans leur queue d'origine
+     * POST /api/users/admin/dead-letters/{queue}/replay?limit=100
+     */
+    @PostMapping("/{queue}/replay")
+    public ResponseEntity<?> replay(
+            @PathVariable String queue,
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        try {
+            int replayed = deadLetterService.replay(queue, Math.min(Math.max(limit, 1), MAX_LIMIT));
+            return ResponseEntity.ok(Map.of("replayed", replayed));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors du rejeu",
+                "message", e.getMessage()
+            ));
+        }
+    }
+}
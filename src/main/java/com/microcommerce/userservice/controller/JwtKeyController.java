@@ -0,0 +1,36 @@
+package com.microcommerce.userservice.controller;
+
+import com.microcommerce.userservice.security.JwtUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Contrôleur d'administration des clés JWT (admin seulement, cf. SecurityConfig)
+ *
+ * Lecture seule : le trousseau vient de la configuration partagée par toutes les instances
+ * (jwt.keyring.*). Pour faire tourner le secret, on met à jour le secret partagé,
+ * chaque replica le recharge dans les jwt.keyring.refresh-ms.
+ */
+@RestController
+@RequestMapping("/api/users/admin/jwt/keys")
+public class JwtKeyController {
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    /**
+     * Liste les kids connus et la clé active (jamais les secrets)
+     * GET /api/users/admin/jwt/keys
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getKeys() {
+        return ResponseEntity.ok(Map.of(
+            "activeKid", jwtUtil.getActiveKeyId(),
+            "kids", jwtUtil.getKnownKeyIds(),
+            "source", jwtUtil.getKeyringSource()
+        ));
+    }
+}
@@ -0,0 +1,31 @@
+package com.microcommerce.userservice.controller;
+
+import com.microcommerce.userservice.service.PasswordHashingRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Réponse commune quand le pool de hachage des mots de passe est saturé
+ *
+ * 503 + Retry-After pour tous les endpoints qui hachent (register, login, update...) :
+ * les contrôleurs laissent passer PasswordHashingRejectedException au lieu d'en faire un 400
+ */
+@RestControllerAdvice
+public class PasswordHashingExceptionHandler {
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<?> handlePasswordHashingRejected(PasswordHashingRejectedException e) {
+        // Pool de hachage saturé : on demande au client de revenir plus tard
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(Map.of(
+                "error", "Service temporairement surchargé",
+                "message", e.getMessage()
+            ));
+    }
+}
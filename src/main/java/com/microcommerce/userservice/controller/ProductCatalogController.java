@@ -0,0 +1,86 @@
+package com.microcommerce.userservice.controller;
+
+import com.microcommerce.userservice.dto.ProductInfoDto;
+import com.microcommerce.userservice.event.ProductEvent;
+import com.microcommerce.userservice.service.CachedProduct;
+import com.microcommerce.userservice.service.ProductCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Lecture du cache local des produits (alimenté par les événements product.*)
+ * 
+ * Pour afficher des infos produits (wishlist, historique...) sans appeler le product-service
+ */
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "*")
+public class ProductCatalogController {
+    
+    private static final int MAX_IDS = 500;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    /**
+     * Récupère un produit depuis le cache local
+     * GET /api/users/products/{productId}
+     */
+    @GetMapping("/products/{productId}")
+    public ResponseEntity<?> getProduct(@PathVariable String productId) {
+        CachedProduct product = productCache.get(productId);
+        if (product == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(ProductInfoDto.from(product));
+    }
+    
+    /**
+     * Récupère plusieurs produits d'un coup (les inconnus sont absents de la réponse)
+     * GET /api/users/products?ids=p1,p2,p3
+     */
+    @GetMapping("/products")
+    public ResponseEntity<?> getProducts(@RequestParam List<String> ids) {
+        if (ids.size() > MAX_IDS) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Trop de produits demandés",
+                "message", "Maximum " + MAX_IDS + " IDs par appel"
+            ));
+        }
+        List<ProductInfoDto> products = productCache.getAll(ids).values().stream()
+            .map(ProductInfoDto::from)
+            .collect(Collectors.toList());
+        return ResponseEntity.ok(products);
+    }
+    
+    /**
+     * Charge un snapshot du catalogue dans le cache (admin seulement)
+     * POST /api/users/admin/products/snapshot
+     * Corps : liste de produits au format des événements produits
+     * takenAt (ISO-8601) : moment où le snapshot a été lu côté product-service, maintenant par défaut
+     */
+    @PostMapping("/admin/products/snapshot")
+    public ResponseEntity<?> loadSnapshot(
+            @RequestBody List<ProductEvent> snapshot,
+            @RequestParam(required = false) Instant takenAt
+    ) {
+        try {
+            int loaded = productCache.loadSnapshot(snapshot, takenAt != null ? takenAt : Instant.now());
+            return ResponseEntity.ok(Map.of(
+                "loaded", loaded,
+                "cached", productCache.estimatedSize()
+            ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors du chargement du snapshot",
+                "message", e.getMessage()
+            ));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.microcommerce.userservice.controller;
+
+import com.microcommerce.userservice.dto.UserResponse;
+import com.microcommerce.userservice.service.ReactiveUserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Lectures d'utilisateurs non bloquantes (profil "reactive")
+ * 
+ * Mêmes routes et mêmes réponses que UserReadController, mais les méthodes renvoient
+ * des Mono/Flux : le thread de la requête est rendu pendant l'attente de MongoDB
+ * (driver réactif), la réponse est écrite quand les données arrivent.
+ * 
+ * En plus, /stream et /role/{role}/stream envoient tous les utilisateurs en NDJSON,
+ * au rythme où le client les lit (back-pressure jusqu'au curseur Mongo).
+ */
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "*")
+@Profile("reactive")
+public class ReactiveUserReadController {
+    
+    @Autowired
+    private ReactiveUserService reactiveUserService;
+    
+    /**
+     * Récupère les utilisateurs page par page (normalement admin seulement)
+     * GET /api/users?cursor=...&size=...
+     */
+    @GetMapping
+    public Mono<ResponseEntity<?>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return reactiveUserService.getAllUsers(cursor, size)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors de la récupération des utilisateurs",
+                "message", e.getMessage()
+            ))));
+    }
+    
+    /**
+     * Tous les utilisateurs après le curseur, en NDJSON au fil de l'eau
+     * GET /api/users/stream?cursor=...
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserResponse> streamUsers(@RequestParam(required = false) String cursor) {
+        return reactiveUserService.streamUsers(cursor);
+    }
+    
+    /**
+     * Chope un utilisateur par son ID
+     * GET /api/users/{id}
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<?>> getUserById(@PathVariable String id) {
+        return reactiveUserService.getUserById(id)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+    
+    /**
+     * Recherche des utilisateurs par nom (normalement admin seulement)
+     * GET /api/users/search?name=...&mode=prefix|text&cursor=...&size=...
+     */
+    @GetMapping("/search")
+    public Mono<ResponseEntity<?>> searchUsers(
+            @RequestParam String name,
+            @RequestParam(required = false) String mode,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return reactiveUserService.searchUsersByName(name, mode, cursor, size)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors de la recherche",
+                "message", e.getMessage()
+            ))));
+    }
+    
+    /**
+     * Récupère les utilisateurs par rôle (normalement admin seulement)
+     * GET /api/users/role/{role}?cursor=...&size=...
+     */
+    @GetMapping("/role/{role}")
+    public Mono<ResponseEntity<?>> getUsersByRole(
+            @PathVariable String role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        return reactiveUserService.getUsersByRole(role, cursor, size)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors de la récupération des utilisateurs",
+                "message", e.getMessage()
+            ))));
+    }
+    
+    /**
+     * Tous les utilisateurs d'un rôle après le curseur, en NDJSON au fil de l'eau
+     * GET /api/users/role/{role}/stream?cursor=...
+     */
+    @GetMapping(value = "/role/{role}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserResponse> streamUsersByRole(
+            @PathVariable String role,
+            @RequestParam(required = false) String cursor
+    ) {
+        return reactiveUserService.streamUsersByRole(role, cursor);
+    }
+    
+    /**
+     * Endpoint interne pour les autres services
+     * GET /api/users/internal/{id}
+     */
+    @GetMapping("/internal/{id}")
+    public Mono<ResponseEntity<?>> getUserInfoForService(@PathVariable String id) {
+        return reactiveUserService.getUserInfoDto(id)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+    
+    /**
+     * Curseur invalide sur les flux NDJSON : levé avant le premier élément, donc encore un 400
+     */
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<?> handleStreamError(RuntimeException e) {
+        return ResponseEntity.badRequest().body(Map.of(
+            "error", "Erreur lors de la lecture des utilisateurs",
+            "message", e.getMessage()
+        ));
+    }
+}
@@ -1,18 +1,30 @@
 package com.microcommerce.userservice.controller;
 
+import com.microcommerce.userservice.dto.OrderSummaryResponse;
 import com.microcommerce.userservice.dto.RegisterRequest;
+import com.microcommerce.userservice.dto.UserBatchRequest;
+import com.microcommerce.userservice.dto.UserImportReport;
 import com.microcommerce.userservice.dto.UserResponse;
 import com.microcommerce.userservice.dto.UserInfoDto;
+import com.microcommerce.userservice.service.EmailAlreadyUsedException;
+import com.microcommerce.userservice.service.OrderSummaryService;
+import com.microcommerce.userservice.service.PasswordHashingRejectedException;
+import com.microcommerce.userservice.service.UserImportService;
 import com.microcommerce.userservice.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 // import org.springframework.security.access.prepost.PreAuthorize;
 // Imports Spring Security temporairement désactivés (on les remettra plus tard)
 // import org.springframework.security.core.Authentication;
 // import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +36,9 @@ import java.util.Map;
  * - Recherche et filtrage
  * - Gestion des profils
  * - Administration (pour les admins)
+ * 
+ * Les lectures (liste, par ID, recherche, par rôle, interne) sont dans
+ * UserReadController, ou ReactiveUserReadController avec le profil "reactive"
  */
 @RestController
 @RequestMapping("/api/users")
@@ -33,30 +48,48 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private UserImportService userImportService;
+    
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+    
     /**
-     * Récupère tous les utilisateurs (normalement admin seulement)
-     * GET /api/users
+     * Exporte tous les utilisateurs en NDJSON, écrit au fil de l'eau (admin seulement)
+     * GET /api/users/admin/export
      */
-    @GetMapping
-    // @PreAuthorize("hasRole('ADMIN')") // Temporairement désactivé // Temporairement désactivé
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        List<UserResponse> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    @GetMapping(value = "/admin/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = userService::exportUsers;
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
     }
     
     /**
-     * Chope un utilisateur par son ID
-     * GET /api/users/{id}
+     * Importe des utilisateurs en masse depuis un fichier CSV ou NDJSON (admin seulement)
+     * POST /api/users/admin/import
+     * Content-Type: text/csv (en-têtes name,email,password[,role]) ou application/x-ndjson
+     * Le corps est lu au fil de l'eau, la réponse donne le bilan ligne par ligne
      */
-    @GetMapping("/{id}")
-    // @PreAuthorize("hasRole('ADMIN') or @userService.isOwner(#id, authentication.name)") // Temporairement désactivé
-    public ResponseEntity<?> getUserById(@PathVariable String id) {
+    @PostMapping(value = "/admin/import", consumes = { "text/csv", MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<?> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) {
+        UserImportService.Format format = contentType.startsWith("text/csv")
+            ? UserImportService.Format.CSV
+            : UserImportService.Format.NDJSON;
         try {
-            // TODO: Vérifier les permissions quand on remettra Spring Security
-            UserResponse user = userService.getUserById(id);
-            return ResponseEntity.ok(user);
+            UserImportReport report = userImportService.importUsers(body, format);
+            return ResponseEntity.ok(report);
+        } catch (PasswordHashingRejectedException e) {
+            throw e; // 503 + Retry-After, cf. PasswordHashingExceptionHandler
         } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors de l'import",
+                "message", e.getMessage()
+            ));
         }
     }
     
@@ -84,6 +117,14 @@ public class UserController {
             // TODO: Vérifier les permissions quand on remettra Spring Security
             UserResponse updatedUser = userService.updateUser(id, request);
             return ResponseEntity.ok(updatedUser);
+        } catch (PasswordHashingRejectedException e) {
+            throw e; // 503 + Retry-After, cf. PasswordHashingExceptionHandler
+        } catch (EmailAlreadyUsedException e) {
+            // Refusé par l'index unique sur l'email
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", "Email déjà utilisé",
+                "message", e.getMessage()
+            ));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "error", "Erreur lors de la mise à jour",
@@ -110,29 +151,23 @@ public class UserController {
     }
     
     /**
-     * Recherche des utilisateurs par nom (normalement admin seulement)
-     * GET /api/users/search?name=...
-     */
-    @GetMapping("/search")
-    // @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<UserResponse>> searchUsers(@RequestParam String name) {
-        List<UserResponse> users = userService.searchUsersByName(name);
-        return ResponseEntity.ok(users);
-    }
-    
-    /**
-     * Récupère les utilisateurs par rôle (normalement admin seulement)
-     * GET /api/users/role/{role}
+     * Résumé des commandes d'un utilisateur (nombre, dépenses, dernière commande, statuts)
+     * GET /api/users/{id}/order-summary
+     * L'ID est le userId des événements du service commandes, tenu à jour depuis order.*
      */
-    @GetMapping("/role/{role}")
-    // @PreAuthorize("hasRole('ADMIN')") // Temporairement désactivé
-    public ResponseEntity<List<UserResponse>> getUsersByRole(@PathVariable String role) {
-        List<UserResponse> users = userService.getUsersByRole(role);
-        return ResponseEntity.ok(users);
+    @GetMapping("/{id}/order-summary")
+    public ResponseEntity<?> getOrderSummary(@PathVariable String id) {
+        try {
+            OrderSummaryResponse summary = orderSummaryService.getSummary(id);
+            return ResponseEntity.ok(summary);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors de la récupération du résumé des commandes",
+                "message", e.getMessage()
+            ));
+        }
     }
     
-
-    
     /**
      * Statistiques des utilisateurs (nombre total, par rôle, etc.)
      * GET /api/users/stats
@@ -144,20 +179,35 @@ public class UserController {
     }
     
     /**
-     * Endpoint interne pour les autres services
-     * Retourne juste les infos essentielles d'un utilisateur (sans mot de passe évidemment)
-     * GET /api/internal/users/{id}
+     * Nombre d'inscriptions par heure ou par jour
+     * GET /api/users/stats/signups?granularity=hour|day&days=7
      */
-    @GetMapping("/internal/{id}")
-    public ResponseEntity<UserInfoDto> getUserInfoForService(@PathVariable String id) {
+    @GetMapping("/stats/signups")
+    public ResponseEntity<?> getSignupStats(
+            @RequestParam(required = false) String granularity,
+            @RequestParam(defaultValue = "7") int days
+    ) {
         try {
-            UserInfoDto userInfo = userService.getUserInfoDto(id);
-            return ResponseEntity.ok(userInfo);
+            return ResponseEntity.ok(userService.getSignupStats(granularity, days));
         } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors du calcul des statistiques",
+                "message", e.getMessage()
+            ));
         }
     }
     
+    /**
+     * Endpoint interne pour lire plusieurs utilisateurs d'un coup
+     * Un seul aller-retour au lieu d'un GET /internal/{id} par utilisateur
+     * POST /api/users/internal/batch  {"ids": ["...", "..."]}
+     */
+    @PostMapping("/internal/batch")
+    public ResponseEntity<List<UserInfoDto>> getUserInfosForService(@Valid @RequestBody UserBatchRequest request) {
+        List<UserInfoDto> users = userService.getUserInfoDtos(request.getIds());
+        return ResponseEntity.ok(users);
+    }
+    
     /**
      * Test de l'API utilisateurs (pour vérifier que tout fonctionne)
      * GET /api/users/test
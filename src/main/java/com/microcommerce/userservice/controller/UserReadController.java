@@ -0,0 +1,125 @@
+package com.microcommerce.userservice.controller;
+
+import com.microcommerce.userservice.dto.UserInfoDto;
+import com.microcommerce.userservice.dto.UserPage;
+import com.microcommerce.userservice.dto.UserResponse;
+import com.microcommerce.userservice.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Lectures d'utilisateurs (liste, par ID, recherche, par rôle, interne)
+ * 
+ * Version servlet classique, bloquante. Avec le profil "reactive" c'est
+ * ReactiveUserReadController qui sert ces mêmes routes.
+ */
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "*")
+@Profile("!reactive")
+public class UserReadController {
+    
+    @Autowired
+    private UserService userService;
+    
+    /**
+     * Récupère les utilisateurs page par page (normalement admin seulement)
+     * GET /api/users?cursor=...&size=...
+     */
+    @GetMapping
+    // @PreAuthorize("hasRole('ADMIN')") // Temporairement désactivé // Temporairement désactivé
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        try {
+            UserPage users = userService.getAllUsers(cursor, size);
+            return ResponseEntity.ok(users);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors de la récupération des utilisateurs",
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Chope un utilisateur par son ID
+     * GET /api/users/{id}
+     */
+    @GetMapping("/{id}")
+    // @PreAuthorize("hasRole('ADMIN') or @userService.isOwner(#id, authentication.name)") // Temporairement désactivé
+    public ResponseEntity<?> getUserById(@PathVariable String id) {
+        try {
+            // TODO: Vérifier les permissions quand on remettra Spring Security
+            UserResponse user = userService.getUserById(id);
+            return ResponseEntity.ok(user);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    /**
+     * Recherche des utilisateurs par nom (normalement admin seulement)
+     * GET /api/users/search?name=...&mode=prefix|text&cursor=...&size=...
+     */
+    @GetMapping("/search")
+    // @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> searchUsers(
+            @RequestParam String name,
+            @RequestParam(required = false) String mode,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        try {
+            UserPage users = userService.searchUsersByName(name, mode, cursor, size);
+            return ResponseEntity.ok(users);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors de la recherche",
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Récupère les utilisateurs par rôle (normalement admin seulement)
+     * GET /api/users/role/{role}?cursor=...&size=...
+     */
+    @GetMapping("/role/{role}")
+    // @PreAuthorize("hasRole('ADMIN')") // Temporairement désactivé
+    public ResponseEntity<?> getUsersByRole(
+            @PathVariable String role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
+        try {
+            UserPage users = userService.getUsersByRole(role, cursor, size);
+            return ResponseEntity.ok(users);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Erreur lors de la récupération des utilisateurs",
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Endpoint interne pour les autres services
+     * Retourne juste les infos essentielles d'un utilisateur (sans mot de passe évidemment)
+     * GET /api/internal/users/{id}
+     */
+    @GetMapping("/internal/{id}")
+    public ResponseEntity<UserInfoDto> getUserInfoForService(@PathVariable String id) {
+        try {
+            UserInfoDto userInfo = userService.getUserInfoDto(id);
+            return ResponseEntity.ok(userInfo);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.microcommerce.userservice.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * DTO du résumé des commandes d'un utilisateur
+ * 
+ * Lu directement dans user_order_summaries : plus besoin d'appeler
+ * le service commandes à chaque affichage
+ */
+public class OrderSummaryResponse {
+    
+    private String userId;
+    private long orderCount;
+    private BigDecimal lifetimeSpend;
+    private Instant lastOrderAt;
+    private Map<String, Long> statusCounts;
+    
+    // Constructeurs
+    public OrderSummaryResponse() {}
+    
+    public OrderSummaryResponse(String userId, long orderCount, BigDecimal lifetimeSpend,
+                                Instant lastOrderAt, Map<String, Long> statusCounts) {
+        this.userId = userId;
+        this.orderCount = orderCount;
+        this.lifetimeSpend = lifetimeSpend;
+        this.lastOrderAt = lastOrderAt;
+        this.statusCounts = statusCounts;
+    }
+    
+    // Getters et Setters
+    public String getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    
+    public long getOrderCount() {
+        return orderCount;
+    }
+    
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+    
+    public BigDecimal getLifetimeSpend() {
+        return lifetimeSpend;
+    }
+    
+    public void setLifetimeSpend(BigDecimal lifetimeSpend) {
+        this.lifetimeSpend = lifetimeSpend;
+    }
+    
+    public Instant getLastOrderAt() {
+        return lastOrderAt;
+    }
+    
+    public void setLastOrderAt(Instant lastOrderAt) {
+        this.lastOrderAt = lastOrderAt;
+    }
+    
+    public Map<String, Long> getStatusCounts() {
+        return statusCounts;
+    }
+    
+    public void setStatusCounts(Map<String, Long> statusCounts) {
+        this.statusCounts = statusCounts;
+    }
+}
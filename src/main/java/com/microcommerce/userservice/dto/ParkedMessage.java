@@ -0,0 +1,58 @@
+package com.microcommerce.userservice.dto;
+
+import java.util.Map;
+
+/**
+ * DTO pour un message du parking lot (inspection admin)
+ * 
+ * Les headers contiennent la raison de l'échec (x-exception-message, x-retry-count...)
+ * ou x-death quand le message a été rejeté directement (ex: JSON illisible)
+ */
+public class ParkedMessage {
+    
+    private String messageId;
+    private Map<String, String> headers;
+    private String body;
+    
+    // Constructeurs
+    public ParkedMessage() {}
+    
+    public ParkedMessage(String messageId, Map<String, String> headers, String body) {
+        this.messageId = messageId;
+        this.headers = headers;
+        this.body = body;
+    }
+    
+    // Getters et Setters
+    public String getMessageId() {
+        return messageId;
+    }
+    
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+    
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+    
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+    
+    public String getBody() {
+        return body;
+    }
+    
+    public void setBody(String body) {
+        this.body = body;
+    }
+    
+    @Override
+    public String toString() {
+        return "ParkedMessage{" +
+                "messageId='" + messageId + '\'' +
+                ", headers=" + headers +
+                '}';
+    }
+}
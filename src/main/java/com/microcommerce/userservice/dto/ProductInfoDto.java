@@ -0,0 +1,88 @@
+package com.microcommerce.userservice.dto;
+
+import com.microcommerce.userservice.service.CachedProduct;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * DTO d'un produit lu dans le cache local (pas d'appel au product-service)
+ * 
+ * updatedAt = horodatage du dernier événement produit pris en compte
+ */
+public class ProductInfoDto {
+    
+    private String productId;
+    private String name;
+    private BigDecimal price;
+    private Integer stock;
+    private String category;
+    private Instant updatedAt;
+    
+    // Constructeurs
+    public ProductInfoDto() {}
+    
+    public ProductInfoDto(String productId, String name, BigDecimal price, Integer stock,
+                          String category, Instant updatedAt) {
+        this.productId = productId;
+        this.name = name;
+        this.price = price;
+        this.stock = stock;
+        this.category = category;
+        this.updatedAt = updatedAt;
+    }
+    
+    public static ProductInfoDto from(CachedProduct product) {
+        return new ProductInfoDto(product.getProductId(), product.getName(), product.getPrice(),
+            product.getStock(), product.getCategory(), product.getVersion());
+    }
+    
+    // Getters et Setters
+    public String getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+    
+    public Integer getStock() {
+        return stock;
+    }
+    
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+    
+    public String getCategory() {
+        return category;
+    }
+    
+    public void setCategory(String category) {
+        this.category = category;
+    }
+    
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
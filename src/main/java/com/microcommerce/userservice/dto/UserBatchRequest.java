@@ -0,0 +1,41 @@
+package com.microcommerce.userservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO pour la lecture en lot des infos utilisateurs (appels inter-services)
+ *
+ * Une liste d'IDs au lieu d'un appel HTTP par utilisateur
+ */
+public class UserBatchRequest {
+
+    @NotEmpty(message = "La liste d'IDs est obligatoire")
+    @Size(max = 1000, message = "Pas plus de 1000 IDs par requête")
+    private List<String> ids;
+
+    // Constructeurs
+    public UserBatchRequest() {}
+
+    public UserBatchRequest(List<String> ids) {
+        this.ids = ids;
+    }
+
+    // Getters et Setters
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+
+    @Override
+    public String toString() {
+        return "UserBatchRequest{" +
+                "ids=" + (ids != null ? ids.size() : 0) + " ids" +
+                '}';
+    }
+}
@@ -0,0 +1,134 @@
+package com.microcommerce.userservice.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO pour le résultat d'un import d'utilisateurs
+ * 
+ * Les compteurs couvrent tout le fichier, la liste des erreurs est tronquée
+ * (errorsTruncated = true) pour ne pas renvoyer 100 000 lignes d'erreurs
+ */
+public class UserImportReport {
+    
+    private long totalRows;
+    private long imported;
+    private long duplicates;
+    private long invalid;
+    private long durationMs;
+    private boolean errorsTruncated;
+    private List<RowError> errors = new ArrayList<>();
+    
+    // Constructeurs
+    public UserImportReport() {}
+    
+    // Getters et Setters
+    public long getTotalRows() {
+        return totalRows;
+    }
+    
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+    
+    public long getImported() {
+        return imported;
+    }
+    
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+    
+    public long getDuplicates() {
+        return duplicates;
+    }
+    
+    public void setDuplicates(long duplicates) {
+        this.duplicates = duplicates;
+    }
+    
+    public long getInvalid() {
+        return invalid;
+    }
+    
+    public void setInvalid(long invalid) {
+        this.invalid = invalid;
+    }
+    
+    public long getDurationMs() {
+        return durationMs;
+    }
+    
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+    
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+    
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+    
+    public List<RowError> getErrors() {
+        return errors;
+    }
+    
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+    
+    @Override
+    public String toString() {
+        return "UserImportReport{" +
+                "totalRows=" + totalRows +
+                ", imported=" + imported +
+                ", duplicates=" + duplicates +
+                ", invalid=" + invalid +
+                ", durationMs=" + durationMs +
+                '}';
+    }
+    
+    /**
+     * Une ligne refusée : numéro de ligne dans le fichier, email (si lisible) et raison
+     */
+    public static class RowError {
+        
+        private long line;
+        private String email;
+        private String reason;
+        
+        public RowError() {}
+        
+        public RowError(long line, String email, String reason) {
+            this.line = line;
+            this.email = email;
+            this.reason = reason;
+        }
+        
+        public long getLine() {
+            return line;
+        }
+        
+        public void setLine(long line) {
+            this.line = line;
+        }
+        
+        public String getEmail() {
+            return email;
+        }
+        
+        public void setEmail(String email) {
+            this.email = email;
+        }
+        
+        public String getReason() {
+            return reason;
+        }
+        
+        public void setReason(String reason) {
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.microcommerce.userservice.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Une ligne d'un import d'utilisateurs (CSV ou NDJSON)
+ * 
+ * Mêmes règles que RegisterRequest, plus un rôle optionnel (USER par défaut)
+ */
+public class UserImportRow {
+    
+    @NotBlank(message = "Le nom est obligatoire")
+    @Size(min = 2, max = 100, message = "Le nom doit faire entre 2 et 100 caractères")
+    private String name;
+    
+    @NotBlank(message = "L'email est obligatoire")
+    @Email(message = "Format d'email invalide")
+    private String email;
+    
+    @NotBlank(message = "Le mot de passe est obligatoire")
+    @Size(min = 6, message = "Le mot de passe doit faire au moins 6 caractères")
+    private String password;
+    
+    @Pattern(regexp = "USER|ADMIN", message = "Le rôle doit être USER ou ADMIN")
+    private String role;
+    
+    // Constructeurs
+    public UserImportRow() {}
+    
+    public UserImportRow(String name, String email, String password, String role) {
+        this.name = name;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+    }
+    
+    // Getters et Setters
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public void setEmail(String email) {
+        this.email = email;
+    }
+    
+    public String getPassword() {
+        return password;
+    }
+    
+    public void setPassword(String password) {
+        this.password = password;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+    
+    public void setRole(String role) {
+        this.role = role;
+    }
+    
+    @Override
+    public String toString() {
+        return "UserImportRow{" +
+                "name='" + name + '\'' +
+                ", email='" + email + '\'' +
+                ", role='" + role + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package com.microcommerce.userservice.dto;
+
+import java.util.List;
+
+/**
+ * DTO pour une page d'utilisateurs (pagination par curseur)
+ *
+ * Le curseur est l'ID du dernier utilisateur de la page : on le renvoie
+ * tel quel dans ?cursor=... pour avoir la page suivante.
+ * nextCursor est null quand il n'y a plus rien après.
+ */
+public class UserPage {
+
+    private List<UserResponse> users;
+    private String nextCursor;
+    private int size;
+
+    // Constructeurs
+    public UserPage() {}
+
+    public UserPage(List<UserResponse> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+        this.size = users.size();
+    }
+
+    // Getters et Setters
+    public List<UserResponse> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserResponse> users) {
+        this.users = users;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPage{" +
+                "size=" + size +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
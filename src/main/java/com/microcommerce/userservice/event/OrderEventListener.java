@@ -1,70 +1,113 @@
 package com.microcommerce.userservice.event;
 
+import com.microcommerce.userservice.config.RabbitMQConfig;
+import com.microcommerce.userservice.listener.ConsumerMetrics;
+import com.microcommerce.userservice.listener.EventDeduplicator;
+import com.microcommerce.userservice.listener.FailedMessageRouter;
+import com.microcommerce.userservice.service.OrderSummaryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Listener des événements commandes
+ * 
+ * Reçoit les messages par lots (cf. orderListenerContainerFactory) : plusieurs
+ * consommateurs en parallèle et un prefetch élevé pour vider vite les rafales de order.*
+ * Un événement en échec part en retry puis au parking lot (cf. FailedMessageRouter)
+ * 
+ * Chaque lot met à jour les résumés de commandes des utilisateurs (cf. OrderSummaryService)
+ * Les messages déjà traités (redelivery) sont écartés avant (cf. EventDeduplicator)
+ */
 @Component
 public class OrderEventListener {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderEventListener.class);
     
-    @RabbitListener(queues = "user-service.order.queue")
-    public void handleOrderEvent(OrderEvent orderEvent) {
-        logger.info("Événement commande reçu dans user-service: {}", orderEvent);
-        
-        try {
-            switch (orderEvent.getEventType()) {
-                case "ORDER_CREATED":
-                    handleOrderCreated(orderEvent);
-                    break;
-                case "ORDER_STATUS_UPDATED":
-                    handleOrderStatusUpdated(orderEvent);
-                    break;
-                case "ORDER_CANCELLED":
-                    handleOrderCancelled(orderEvent);
-                    break;
-                case "ORDER_DELETED":
-                    handleOrderDeleted(orderEvent);
-                    break;
-                default:
-                    logger.warn("Type d'événement commande non géré: {}", orderEvent.getEventType());
-            }
-        } catch (Exception e) {
-            logger.error("Erreur lors du traitement de l'événement commande: {}", orderEvent, e);
-        }
-    }
+    @Autowired
+    private ConsumerMetrics consumerMetrics;
     
-    private void handleOrderCreated(OrderEvent orderEvent) {
-        logger.info("Commande créée - ID: {}, Utilisateur: {}, Montant: {}", 
-                   orderEvent.getOrderId(), orderEvent.getUserId(), orderEvent.getTotalAmount());
-        
-        // Ici on pourrait mettre à jour des statistiques utilisateur
-        // ou envoyer une notification
-    }
+    @Autowired
+    private FailedMessageRouter failedMessageRouter;
+    
+    @Autowired
+    private OrderSummaryService orderSummaryService;
     
-    private void handleOrderStatusUpdated(OrderEvent orderEvent) {
-        logger.info("Statut de commande mis à jour - ID: {}, Nouveau statut: {}", 
-                   orderEvent.getOrderId(), orderEvent.getStatus());
+    @Autowired
+    private EventDeduplicator eventDeduplicator;
+    
+    @RabbitListener(queues = RabbitMQConfig.USER_SERVICE_ORDER_QUEUE,
+                    containerFactory = "orderListenerContainerFactory")
+    public void handleOrderEvents(List<Message<OrderEvent>> messages) {
+        logger.debug("Lot de {} événements commandes reçu", messages.size());
         
-        // Ici on pourrait envoyer une notification à l'utilisateur
-        // ou mettre à jour des métriques
+        consumerMetrics.recordBatch(RabbitMQConfig.USER_SERVICE_ORDER_QUEUE, messages.size(), () -> {
+            List<Message<OrderEvent>> supported = new ArrayList<>(messages.size());
+            List<Long> dedupKeys = new ArrayList<>(messages.size());
+            for (Message<OrderEvent> message : messages) {
+                OrderEvent orderEvent = message.getPayload();
+                long dedupKey = eventDeduplicator.key(RabbitMQConfig.USER_SERVICE_ORDER_QUEUE,
+                    message.getHeaders().get(AmqpHeaders.MESSAGE_ID, String.class),
+                    orderEvent.getOrderId(), orderEvent.getEventType(), orderEvent.getStatus(), orderEvent.getTimestamp());
+                if (eventDeduplicator.isDuplicate(RabbitMQConfig.USER_SERVICE_ORDER_QUEUE, dedupKey)) {
+                    logger.debug("Événement commande déjà traité, ignoré: {}", orderEvent);
+                    continue;
+                }
+                consumerMetrics.recordLag(RabbitMQConfig.USER_SERVICE_ORDER_QUEUE, orderEvent.getTimestamp());
+                logger.debug("Événement commande reçu dans user-service: {}", orderEvent);
+                
+                if (OrderSummaryService.isSupported(orderEvent.getEventType())) {
+                    supported.add(message);
+                    dedupKeys.add(dedupKey);
+                } else {
+                    logger.warn("Type d'événement commande non géré: {}", orderEvent.getEventType());
+                }
+            }
+            updateOrderSummaries(supported, dedupKeys);
+        });
     }
     
-    private void handleOrderCancelled(OrderEvent orderEvent) {
-        logger.info("Commande annulée - ID: {}, Utilisateur: {}", 
-                   orderEvent.getOrderId(), orderEvent.getUserId());
-        
-        // Ici on pourrait envoyer une notification d'annulation
-        // ou mettre à jour des statistiques
+    /**
+     * Met à jour les résumés de commandes des utilisateurs pour tout le lot d'un coup
+     * Si le lot échoue, on repasse les événements un par un pour n'envoyer en retry que le fautif
+     */
+    private void updateOrderSummaries(List<Message<OrderEvent>> messages, List<Long> dedupKeys) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Map<String, OrderEvent> events = new LinkedHashMap<>();
+        for (Message<OrderEvent> message : messages) {
+            events.put(eventId(message), message.getPayload());
+        }
+        try {
+            orderSummaryService.applyEvents(events);
+            dedupKeys.forEach(eventDeduplicator::markProcessed);
+        } catch (RuntimeException e) {
+            logger.warn("Lot de {} événements commandes en échec, traitement un par un: {}",
+                       messages.size(), e.getMessage());
+            for (int i = 0; i < messages.size(); i++) {
+                Message<OrderEvent> message = messages.get(i);
+                try {
+                    orderSummaryService.applyEvents(Map.of(eventId(message), message.getPayload()));
+                    eventDeduplicator.markProcessed(dedupKeys.get(i));
+                } catch (RuntimeException eventError) {
+                    failedMessageRouter.retryOrPark(RabbitMQConfig.USER_SERVICE_ORDER_QUEUE, message, eventError);
+                }
+            }
+        }
     }
     
-    private void handleOrderDeleted(OrderEvent orderEvent) {
-        logger.info("Commande supprimée - ID: {}, Utilisateur: {}", 
-                   orderEvent.getOrderId(), orderEvent.getUserId());
-        
-        // Ici on pourrait nettoyer des données associées
-        // ou mettre à jour des métriques
+    private static String eventId(Message<OrderEvent> message) {
+        return OrderSummaryService.eventId(message.getHeaders().get(AmqpHeaders.MESSAGE_ID, String.class),
+            message.getPayload());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,138 @@
+package com.microcommerce.userservice.listener;
+
+import com.microcommerce.userservice.config.RabbitMQConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métriques côté consommateur, par queue
+ *
+ * - rabbitmq.consumer.messages : messages traités (le débit = rate() de ce compteur)
+ * - rabbitmq.consumer.process : temps de traitement d'un message ou d'un lot
+ * - rabbitmq.consumer.batch.size : taille des lots reçus
+ * - rabbitmq.consumer.lag : âge des événements à leur traitement (d'après leur timestamp)
+ * - rabbitmq.queue.depth : messages en attente dans la queue, relu régulièrement sur le broker
+ */
+@Component
+public class ConsumerMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerMetrics.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AmqpAdmin amqpAdmin;
+
+    private final Map<String, QueueMeters> metersByQueue = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        // Profondeur suivie dès le démarrage, même avant le premier message
+        meters(RabbitMQConfig.USER_SERVICE_ORDER_QUEUE);
+        meters(RabbitMQConfig.USER_SERVICE_PRODUCT_QUEUE);
+    }
+
+    /**
+     * Traite un message en mesurant durée et débit
+     */
+    public void record(String queue, Runnable processing) {
+        QueueMeters meters = meters(queue);
+        meters.processing.record(processing);
+        meters.messages.increment();
+    }
+
+    /**
+     * Traite un lot en mesurant durée, taille et débit
+     */
+    public void recordBatch(String queue, int size, Runnable processing) {
+        QueueMeters meters = meters(queue);
+        meters.batchSize.record(size);
+        meters.processing.record(processing);
+        meters.messages.increment(size);
+    }
+
+    /**
+     * Âge d'un événement au moment de son traitement
+     * Les timestamps des events sont des LocalDateTime : on suppose le même fuseau que le producteur
+     */
+    public void recordLag(String queue, LocalDateTime eventTimestamp) {
+        if (eventTimestamp != null) {
+            Duration lag = Duration.between(eventTimestamp, LocalDateTime.now());
+            if (!lag.isNegative()) {
+                meters(queue).lag.record(lag);
+            }
+        }
+    }
+
+    /**
+     * Relit la profondeur des queues suivies (un appel au broker par queue, pas à chaque scrape)
+     */
+    @Scheduled(fixedDelayString = "${rabbitmq-consumers.depth-refresh-ms:10000}")
+    public void refreshQueueDepths() {
+        metersByQueue.forEach((queue, meters) -> {
+            try {
+                QueueInformation info = amqpAdmin.getQueueInfo(queue);
+                if (info != null) {
+                    meters.depth.set(info.getMessageCount());
+                }
+            } catch (RuntimeException e) {
+                logger.debug("Profondeur de la queue {} indisponible: {}", queue, e.getMessage());
+            }
+        });
+    }
+
+    private QueueMeters meters(String queue) {
+        return metersByQueue.computeIfAbsent(queue, this::createMeters);
+    }
+
+    private QueueMeters createMeters(String queue) {
+        QueueMeters meters = new QueueMeters();
+        meters.messages = Counter.builder("rabbitmq.consumer.messages")
+            .description("Messages traités")
+            .tag("queue", queue)
+            .register(meterRegistry);
+        meters.processing = Timer.builder("rabbitmq.consumer.process")
+            .description("Temps de traitement d'un message ou d'un lot")
+            .tag("queue", queue)
+            .register(meterRegistry);
+        meters.batchSize = DistributionSummary.builder("rabbitmq.consumer.batch.size")
+            .description("Nombre de messages par lot reçu")
+            .tag("queue", queue)
+            .register(meterRegistry);
+        meters.lag = Timer.builder("rabbitmq.consumer.lag")
+            .description("Âge des événements à leur traitement")
+            .tag("queue", queue)
+            .register(meterRegistry);
+        Gauge.builder("rabbitmq.queue.depth", meters.depth, AtomicLong::get)
+            .description("Messages en attente dans la queue")
+            .tag("queue", queue)
+            .register(meterRegistry);
+        return meters;
+    }
+
+    private static final class QueueMeters {
+        private final AtomicLong depth = new AtomicLong();
+        private Counter messages;
+        private Timer processing;
+        private DistributionSummary batchSize;
+        private Timer lag;
+    }
+}
@@ -0,0 +1,383 @@
+package com.microcommerce.userservice.listener;
+
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Déduplication des messages consommés sur une fenêtre de temps
+ *
+ * RabbitMQ livre "au moins une fois" : après une coupure, un message déjà traité
+ * peut revenir. Chaque message est réduit à une clé de 64 bits (hash du message-id,
+ * ou à défaut des champs qui identifient l'événement) gardée en mémoire :
+ * - dans des tableaux de long en adressage ouvert (~16 octets par clé, pas d'objets)
+ * - répartis en plusieurs générations : la plus vieille est jetée à chaque rotation,
+ *   la fenêtre couvre donc entre (n-1)/n et 100% de event-dedup.window-minutes
+ *
+ * Aucune lecture Mongo par message. Avec event-dedup.persistent=true, les clés sont
+ * aussi écrites par lots dans processed_messages (TTL = la fenêtre) et rechargées
+ * au démarrage, pour qu'un redémarrage ne rouvre pas la fenêtre (sans effet sans Mongo,
+ * profil in-memory).
+ *
+ * Les clés ne sont marquées qu'après un traitement réussi : un message en échec
+ * repasse normalement par le retry. Chaque instance a sa propre mémoire, les
+ * traitements doivent rester idempotents pour les cas limites (collision de hash
+ * improbable, redelivery vers une autre instance).
+ */
+@Component
+public class EventDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventDeduplicator.class);
+
+    private static final String COLLECTION = "processed_messages";
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @Value("${event-dedup.window-minutes:60}")
+    private long windowMinutes;
+
+    @Value("${event-dedup.generations:4}")
+    private int generationCount;
+
+    @Value("${event-dedup.max-keys-per-generation:500000}")
+    private int maxKeysPerGeneration;
+
+    @Value("${event-dedup.persistent:false}")
+    private boolean persistent;
+
+    @Autowired
+    private ObjectProvider<MongoTemplate> mongoTemplateProvider;
+
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private LongHashSet[] generations;
+    private int current;
+    private long currentStartedAt;
+    private long generationNanos;
+
+    // Clés marquées pas encore écrites dans Mongo (mode persistant)
+    private long[] pendingWrites = new long[INITIAL_CAPACITY];
+    private int pendingCount;
+
+    private final Map<String, Counter> duplicatesByQueue = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        generations = new LongHashSet[Math.max(2, generationCount)];
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = new LongHashSet(INITIAL_CAPACITY);
+        }
+        generationNanos = TimeUnit.MINUTES.toNanos(windowMinutes) / generations.length;
+        currentStartedAt = System.nanoTime();
+
+        Gauge.builder("rabbitmq.consumer.dedup.keys", this, EventDeduplicator::size)
+            .description("Clés de messages déjà traités gardées en mémoire")
+            .register(meterRegistry);
+
+        if (persistent) {
+            mongoTemplate = mongoTemplateProvider.getIfAvailable();
+            if (mongoTemplate == null) {
+                logger.warn("event-dedup.persistent ignoré : pas de MongoDB, clés gardées en mémoire seulement");
+                persistent = false;
+            } else {
+                loadPersistedKeys();
+            }
+        }
+    }
+
+    /**
+     * Clé d'un message : son message-id s'il en a un, sinon les champs qui identifient l'événement
+     */
+    public long key(String queue, String messageId, Object... fields) {
+        long hash = hash(FNV_OFFSET, queue);
+        if (messageId != null && !messageId.isEmpty()) {
+            return mix(hash(hash, messageId));
+        }
+        for (Object field : fields) {
+            hash = hash(hash, "\u0000");
+            hash = hash(hash, String.valueOf(field));
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Vrai si ce message a déjà été traité dans la fenêtre (compté dans rabbitmq.consumer.duplicates)
+     */
+    public boolean isDuplicate(String queue, long key) {
+        boolean duplicate;
+        synchronized (this) {
+            rotateIfNeeded();
+            duplicate = containsKey(key);
+        }
+        if (duplicate) {
+            // get d'abord : pas de lambda allouée par doublon une fois le compteur créé
+            Counter counter = duplicatesByQueue.get(queue);
+            if (counter == null) {
+                counter = duplicatesByQueue.computeIfAbsent(queue, this::duplicateCounter);
+            }
+            counter.increment();
+        }
+        return duplicate;
+    }
+
+    /**
+     * Marque un message comme traité (à appeler une fois le traitement réussi)
+     */
+    public synchronized void markProcessed(long key) {
+        rotateIfNeeded();
+        if (containsKey(key) || !generations[current].add(key)) {
+            return;
+        }
+        if (persistent) {
+            if (pendingCount == pendingWrites.length) {
+                pendingWrites = Arrays.copyOf(pendingWrites, pendingWrites.length * 2);
+            }
+            pendingWrites[pendingCount++] = key;
+        }
+    }
+
+    /**
+     * Écrit les clés marquées depuis le dernier passage (mode persistant)
+     */
+    @Scheduled(fixedDelayString = "${event-dedup.flush-interval-ms:1000}")
+    public void flush() {
+        if (!persistent) {
+            return;
+        }
+        long[] keys;
+        int count;
+        synchronized (this) {
+            if (pendingCount == 0) {
+                return;
+            }
+            keys = pendingWrites;
+            count = pendingCount;
+            pendingWrites = new long[INITIAL_CAPACITY];
+            pendingCount = 0;
+        }
+
+        Date now = new Date();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        for (int i = 0; i < count; i++) {
+            bulk.insert(new Document("_id", keys[i]).append("processedAt", now));
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            // Une autre instance a déjà écrit la clé : rien à faire
+            long failures = e.getErrors().stream().map(BulkWriteError::getCode).filter(code -> code != DUPLICATE_KEY).count();
+            if (failures > 0) {
+                logger.warn("{} clés de déduplication non persistées: {}", failures, e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            // Tant pis pour la persistance de ce lot, la mémoire les a toujours
+            logger.warn("Persistance des clés de déduplication impossible: {}", e.getMessage());
+        }
+    }
+
+    public synchronized long size() {
+        long size = 0;
+        for (LongHashSet generation : generations) {
+            size += generation.size();
+        }
+        return size;
+    }
+
+    private boolean containsKey(long key) {
+        for (LongHashSet generation : generations) {
+            if (generation.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Passe à la génération suivante (en vidant la plus vieille) quand la courante
+     * a fait son temps, ou plus tôt si elle est pleine pour borner la mémoire
+     */
+    private void rotateIfNeeded() {
+        long now = System.nanoTime();
+        int rotations = 0;
+        while (now - currentStartedAt >= generationNanos && rotations < generations.length) {
+            advance();
+            currentStartedAt += generationNanos;
+            rotations++;
+        }
+        if (now - currentStartedAt >= generationNanos) {
+            currentStartedAt = now; // Rien reçu depuis plus d'une fenêtre
+        }
+        if (generations[current].size() >= maxKeysPerGeneration) {
+            advance();
+            currentStartedAt = now;
+        }
+    }
+
+    private void advance() {
+        current = (current + 1) % generations.length;
+        generations[current] = new LongHashSet(INITIAL_CAPACITY);
+    }
+
+    private void loadPersistedKeys() {
+        Duration window = Duration.ofMinutes(windowMinutes);
+        try {
+            mongoTemplate.indexOps(COLLECTION)
+                .ensureIndex(new Index().on("processedAt", Sort.Direction.ASC).expire(window));
+        } catch (RuntimeException e) {
+            // Index déjà créé avec une autre fenêtre par exemple
+            logger.warn("Index TTL de {} non créé: {}", COLLECTION, e.getMessage());
+        }
+
+        Query recent = Query.query(Criteria.where("processedAt").gt(Date.from(Instant.now().minus(window))));
+        recent.fields().include("_id");
+        long loaded = 0;
+        try (var keys = mongoTemplate.stream(recent, Document.class, COLLECTION)) {
+            for (Document doc : (Iterable<Document>) keys::iterator) {
+                Object id = doc.get("_id");
+                if (id instanceof Long key) {
+                    synchronized (this) {
+                        rotateIfNeeded();
+                        generations[current].add(key);
+                    }
+                    loaded++;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Chargement des clés de déduplication impossible: {}", e.getMessage());
+        }
+        logger.info("{} clés de déduplication rechargées depuis {}", loaded, COLLECTION);
+    }
+
+    private Counter duplicateCounter(String queue) {
+        return Counter.builder("rabbitmq.consumer.duplicates")
+            .description("Messages déjà traités reçus à nouveau et ignorés")
+            .tag("queue", queue)
+            .register(meterRegistry);
+    }
+
+    // FNV-1a 64 bits sur l'UTF-8, puis un mélange final (splitmix64) pour bien répartir les bits
+    private static long hash(long hash, String value) {
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Ensemble de long en adressage ouvert (sondage linéaire), sans boxing
+     * 0 sert de case vide, la clé 0 est gérée à part
+     */
+    private static final class LongHashSet {
+        private long[] slots;
+        private int size;
+        private boolean containsZero;
+
+        private LongHashSet(int capacity) {
+            slots = new long[Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1];
+        }
+
+        private boolean add(long key) {
+            if (key == 0) {
+                if (containsZero) {
+                    return false;
+                }
+                containsZero = true;
+                size++;
+                return true;
+            }
+            if ((size + 1) * 2 > slots.length) {
+                grow();
+            }
+            if (!insert(slots, key)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        private boolean contains(long key) {
+            if (key == 0) {
+                return containsZero;
+            }
+            int mask = slots.length - 1;
+            int i = index(key, mask);
+            while (slots[i] != 0) {
+                if (slots[i] == key) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void grow() {
+            long[] bigger = new long[slots.length * 2];
+            for (long key : slots) {
+                if (key != 0) {
+                    insert(bigger, key);
+                }
+            }
+            slots = bigger;
+        }
+
+        private static boolean insert(long[] table, long key) {
+            int mask = table.length - 1;
+            int i = index(key, mask);
+            while (table[i] != 0) {
+                if (table[i] == key) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = key;
+            return true;
+        }
+
+        private static int index(long key, int mask) {
+            return (int) (key ^ (key >>> 32)) & mask;
+        }
+    }
+}
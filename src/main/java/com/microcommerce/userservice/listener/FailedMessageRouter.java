@@ -0,0 +1,115 @@
+package com.microcommerce.userservice.listener;
+
+import com.microcommerce.userservice.config.RabbitMQConfig;
+import com.microcommerce.userservice.service.ConfirmingPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Aiguillage des messages dont le traitement a échoué
+ *
+ * Au lieu de logger et d'acquitter (= message perdu), le message est republié :
+ * - dans <queue>.retry.N tant qu'il reste des essais : il revient dans la queue
+ *   après le délai de ce palier, sans bloquer le thread consommateur pendant l'attente
+ * - dans <queue>.parking-lot quand les essais sont épuisés
+ *
+ * La copie garde les propriétés du message reçu (message-id, correlation-id, timestamp,
+ * en-têtes du producteur) : la déduplication reconnaît une copie de retry comme
+ * l'original, et un message rejoué depuis le parking lot garde sa provenance.
+ *
+ * La republication attend le confirm du broker : si elle échoue, l'exception remonte,
+ * le container rejette le message et le DLX l'envoie quand même au parking lot.
+ */
+@Component
+public class FailedMessageRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailedMessageRouter.class);
+
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String ORIGINAL_QUEUE_HEADER = "x-original-queue";
+    public static final String EXCEPTION_TYPE_HEADER = "x-exception-type";
+    public static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+    public static final String PARKED_AT_HEADER = "x-parked-at";
+
+    private static final int MAX_EXCEPTION_MESSAGE_LENGTH = 500;
+
+    @Autowired
+    private ConfirmingPublisher confirmingPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${dead-letters.retry-delays-ms:1000,10000,60000}")
+    private long[] retryDelaysMs;
+
+    /**
+     * Renvoie le message reçu au palier de retry suivant, ou au parking lot si c'est fini
+     * (le header x-retry-count du message dit combien d'essais ont déjà eu lieu)
+     */
+    public void retryOrPark(String queue, Message<?> received, Exception error) {
+        Integer retryCount = received.getHeaders().get(RETRY_COUNT_HEADER, Integer.class);
+        int attempt = (retryCount != null ? retryCount : 0) + 1;
+        boolean park = attempt > retryDelaysMs.length;
+        String target = park ? RabbitMQConfig.parkingLotQueue(queue) : RabbitMQConfig.retryQueue(queue, attempt);
+        String errorMessage = truncate(String.valueOf(error.getMessage()));
+
+        if (park) {
+            logger.error("Message de {} envoyé au parking lot après {} essais: {}", queue, attempt, errorMessage, error);
+        } else {
+            logger.warn("Échec du traitement d'un message de {} (essai {}), nouvel essai dans {} ms: {}",
+                queue, attempt, retryDelaysMs[attempt - 1], errorMessage);
+        }
+
+        // Exchange par défaut : routing key = nom de la queue cible
+        confirmingPublisher.publish("", target, received.getPayload(), message -> {
+            // Propriétés d'origine d'abord, en-têtes de routage par-dessus
+            copyOriginalProperties(received.getHeaders(), message.getMessageProperties());
+            message.getMessageProperties().setHeader(RETRY_COUNT_HEADER, attempt);
+            message.getMessageProperties().setHeader(ORIGINAL_QUEUE_HEADER, queue);
+            message.getMessageProperties().setHeader(EXCEPTION_TYPE_HEADER, error.getClass().getName());
+            message.getMessageProperties().setHeader(EXCEPTION_MESSAGE_HEADER, errorMessage);
+            if (park) {
+                message.getMessageProperties().setHeader(PARKED_AT_HEADER, Instant.now().toString());
+            }
+            return message;
+        }).join();
+
+        meterRegistry.counter("rabbitmq.consumer.failures",
+            "queue", queue, "outcome", park ? "parked" : "retried").increment();
+    }
+
+    /**
+     * Recopie ce que le producteur avait posé : ids, timestamp et ses propres en-têtes
+     * (pas les en-têtes techniques de Spring ni ceux de la réception : queue, delivery tag...)
+     */
+    private static void copyOriginalProperties(MessageHeaders headers, MessageProperties properties) {
+        properties.setMessageId(headers.get(AmqpHeaders.MESSAGE_ID, String.class));
+        properties.setCorrelationId(headers.get(AmqpHeaders.CORRELATION_ID, String.class));
+        properties.setTimestamp(headers.get(AmqpHeaders.TIMESTAMP, Date.class));
+        properties.setAppId(headers.get(AmqpHeaders.APP_ID, String.class));
+        properties.setType(headers.get(AmqpHeaders.TYPE, String.class));
+        headers.forEach((name, value) -> {
+            if (!name.startsWith(AmqpHeaders.PREFIX) && !MessageHeaders.ID.equals(name)
+                    && !MessageHeaders.TIMESTAMP.equals(name) && !MessageHeaders.CONTENT_TYPE.equals(name)) {
+                properties.setHeader(name, value);
+            }
+        });
+    }
+
+    private String truncate(String message) {
+        return message.length() > MAX_EXCEPTION_MESSAGE_LENGTH
+            ? message.substring(0, MAX_EXCEPTION_MESSAGE_LENGTH)
+            : message;
+    }
+}
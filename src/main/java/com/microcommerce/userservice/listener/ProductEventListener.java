@@ -2,100 +2,74 @@ package com.microcommerce.userservice.listener;
 
 import com.microcommerce.userservice.config.RabbitMQConfig;
 import com.microcommerce.userservice.event.ProductEvent;
+import com.microcommerce.userservice.service.ProductCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
 /**
  * Listener pour traiter les événements produits reçus via RabbitMQ
  * 
  * Quand le product-service envoie un événement (création, mise à jour, suppression),
- * ce listener le reçoit et peut mettre à jour un cache local ou faire d'autres traitements.
+ * ce listener le reçoit et met à jour le cache local des produits (cf. ProductCache).
  */
 @Component
 public class ProductEventListener {
     
     private static final Logger logger = LoggerFactory.getLogger(ProductEventListener.class);
     
+    @Autowired
+    private ConsumerMetrics consumerMetrics;
+    
+    @Autowired
+    private FailedMessageRouter failedMessageRouter;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private EventDeduplicator eventDeduplicator;
+    
     /**
      * Écoute tous les événements produits sur la queue user-service.product.queue
+     * (consommateurs et prefetch réglés dans productListenerContainerFactory)
      */
-    @RabbitListener(queues = RabbitMQConfig.USER_SERVICE_PRODUCT_QUEUE)
-    public void handleProductEvent(ProductEvent productEvent) {
-        logger.info("Événement produit reçu: {}", productEvent);
+    @RabbitListener(queues = RabbitMQConfig.USER_SERVICE_PRODUCT_QUEUE,
+                    containerFactory = "productListenerContainerFactory")
+    public void handleProductEvent(Message<ProductEvent> message) {
+        ProductEvent productEvent = message.getPayload();
+        long dedupKey = eventDeduplicator.key(RabbitMQConfig.USER_SERVICE_PRODUCT_QUEUE,
+            message.getHeaders().get(AmqpHeaders.MESSAGE_ID, String.class),
+            productEvent.getProductId(), productEvent.getEventType(), productEvent.getTimestamp());
+        if (eventDeduplicator.isDuplicate(RabbitMQConfig.USER_SERVICE_PRODUCT_QUEUE, dedupKey)) {
+            logger.debug("Événement produit déjà traité, ignoré: {}", productEvent);
+            return;
+        }
         
+        consumerMetrics.recordLag(RabbitMQConfig.USER_SERVICE_PRODUCT_QUEUE, productEvent.getTimestamp());
         try {
-            switch (productEvent.getEventType()) {
-                case CREATED:
-                    handleProductCreated(productEvent);
-                    break;
-                case UPDATED:
-                    handleProductUpdated(productEvent);
-                    break;
-                case DELETED:
-                    handleProductDeleted(productEvent);
-                    break;
-                default:
-                    logger.warn("Type d'événement produit non géré: {}", productEvent.getEventType());
-            }
-        } catch (Exception e) {
-            logger.error("Erreur lors du traitement de l'événement produit: {}", productEvent, e);
-            // En production, on pourrait implémenter un système de retry ou DLQ (Dead Letter Queue)
+            consumerMetrics.record(RabbitMQConfig.USER_SERVICE_PRODUCT_QUEUE, () -> processProductEvent(productEvent));
+            eventDeduplicator.markProcessed(dedupKey);
+        } catch (RuntimeException e) {
+            // Retry différé puis parking lot, au lieu de perdre le message
+            failedMessageRouter.retryOrPark(RabbitMQConfig.USER_SERVICE_PRODUCT_QUEUE, message, e);
         }
     }
     
-    /**
-     * Traite la création d'un nouveau produit
-     */
-    private void handleProductCreated(ProductEvent productEvent) {
-        logger.info("Nouveau produit créé: {} - {} ({}€)", 
-                   productEvent.getProductId(), 
-                   productEvent.getName(), 
-                   productEvent.getPrice());
-        
-        // Ici on pourrait:
-        // - Mettre à jour un cache local des produits
-        // - Envoyer une notification aux utilisateurs intéressés
-        // - Mettre à jour des statistiques
-        // - etc.
+    private void processProductEvent(ProductEvent productEvent) {
+        logger.debug("Événement produit reçu: {}", productEvent);
         
-        // Exemple: log pour démonstration
-        logger.debug("Cache local mis à jour avec le nouveau produit: {}", productEvent.getProductId());
-    }
-    
-    /**
-     * Traite la mise à jour d'un produit existant
-     */
-    private void handleProductUpdated(ProductEvent productEvent) {
-        logger.info("Produit mis à jour: {} - {} ({}€, stock: {})", 
-                   productEvent.getProductId(), 
-                   productEvent.getName(), 
-                   productEvent.getPrice(),
-                   productEvent.getStock());
-        
-        // Ici on pourrait:
-        // - Mettre à jour le cache local
-        // - Notifier les utilisateurs qui ont ce produit dans leur panier
-        // - Vérifier si le prix a changé et notifier
-        // - etc.
-        
-        logger.debug("Cache local mis à jour pour le produit: {}", productEvent.getProductId());
-    }
-    
-    /**
-     * Traite la suppression d'un produit
-     */
-    private void handleProductDeleted(ProductEvent productEvent) {
-        logger.info("Produit supprimé: {}", productEvent.getProductId());
-        
-        // Ici on pourrait:
-        // - Supprimer du cache local
-        // - Supprimer le produit des paniers des utilisateurs
-        // - Notifier les utilisateurs concernés
-        // - Archiver les données
-        // - etc.
-        
-        logger.debug("Produit supprimé du cache local: {}", productEvent.getProductId());
+        // CREATED / UPDATED remplacent l'entrée, DELETED laisse une tombstone
+        if (productCache.apply(productEvent)) {
+            logger.debug("Cache local mis à jour pour le produit: {} ({})",
+                        productEvent.getProductId(), productEvent.getEventType());
+        } else {
+            logger.debug("Événement produit en retard ignoré: {} ({})",
+                        productEvent.getProductId(), productEvent.getEventType());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package com.microcommerce.userservice.listener;
+
+import com.microcommerce.userservice.event.UserEvent;
+import com.microcommerce.userservice.service.UserCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener qui garde le cache utilisateurs cohérent entre les replicas
+ *
+ * Chaque instance a sa propre queue anonyme liée à user.exchange (cf. RabbitMQConfig) :
+ * quand une instance modifie ou supprime un utilisateur, toutes les autres
+ * oublient leur copie locale.
+ */
+@Component
+public class UserCacheInvalidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCacheInvalidationListener.class);
+
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * Écoute user.created / user.updated / user.deleted sur la queue de cette instance
+     */
+    @RabbitListener(queues = "#{userCacheInvalidationQueue.name}")
+    public void handleUserEvent(UserEvent userEvent) {
+        logger.debug("Invalidation du cache utilisateur: {}", userEvent);
+
+        userCache.invalidate(userEvent.getUserId());
+        userCache.invalidateEmail(userEvent.getEmail());
+    }
+}
@@ -0,0 +1,77 @@
+package com.microcommerce.userservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dernier état connu d'une commande, tenu à jour depuis les événements order.*
+ * 
+ * Sert à savoir de quel statut une commande part quand elle change de statut,
+ * pour déplacer le bon compteur dans UserOrderSummary.
+ * 
+ * Écrit uniquement si version n'a pas bougé depuis la lecture (compare-and-set) :
+ * deux consommateurs qui touchent la même commande ne s'écrasent pas.
+ * appliedEventIds garde les derniers événements appliqués, pour ignorer un redelivery.
+ * Une commande supprimée reste en base (deleted) pour que les événements en retard l'ignorent.
+ */
+@Document(collection = "user_orders")
+public class OrderSnapshot {
+    
+    @Id
+    private Long orderId;
+    
+    @Indexed
+    private String userId;
+    
+    private String status;
+    
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal totalAmount;
+    
+    private Instant orderedAt; // null tant que ORDER_CREATED n'est pas arrivé
+    
+    private boolean deleted;
+    private long version;
+    private List<String> appliedEventIds = new ArrayList<>();
+    
+    // Constructeurs
+    public OrderSnapshot() {}
+    
+    public OrderSnapshot(Long orderId, String userId) {
+        this.orderId = orderId;
+        this.userId = userId;
+    }
+    
+    // Getters et Setters
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+    
+    public Instant getOrderedAt() { return orderedAt; }
+    public void setOrderedAt(Instant orderedAt) { this.orderedAt = orderedAt; }
+    
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
+    
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    
+    public List<String> getAppliedEventIds() { return appliedEventIds; }
+    public void setAppliedEventIds(List<String> appliedEventIds) { this.appliedEventIds = appliedEventIds; }
+}
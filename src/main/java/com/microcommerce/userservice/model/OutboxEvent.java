@@ -0,0 +1,107 @@
+package com.microcommerce.userservice.model;
+
+import com.microcommerce.userservice.event.UserEvent;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Événement utilisateur en attente d'envoi vers RabbitMQ (pattern outbox)
+ * 
+ * Écrit dans Mongo avec la modif de l'utilisateur, puis envoyé par OutboxRelay
+ * en tâche de fond. Supprimé une fois confirmé par le broker.
+ * 
+ * aggregateId (l'utilisateur concerné) sert à garder l'ordre des événements
+ * d'un même utilisateur, y compris quand l'un d'eux part en retry.
+ * 
+ * Après max-attempts échecs l'événement est mis de côté (parkedAt) : il n'est plus
+ * envoyé et ne bloque plus les suivants du même utilisateur.
+ */
+@Document(collection = "user_outbox")
+@CompoundIndex(name = "outbox_due_idx", def = "{'nextAttemptAt': 1, 'createdAt': 1}")
+public class OutboxEvent {
+    
+    @Id
+    private String id;
+    
+    private String exchange;
+    private String routingKey;
+    private UserEvent payload;
+    
+    @Indexed
+    private String aggregateId;
+    
+    @Indexed // Plus vieil événement en attente (métrique de retard)
+    private Instant createdAt;
+    private Instant nextAttemptAt; // Pas d'envoi avant (backoff après un échec)
+    private int attempts;
+    private String lastError;
+    
+    @Indexed(sparse = true) // Événements abandonnés, à examiner (métrique + rejeu manuel)
+    private Instant parkedAt;
+    
+    // Instance qui a pris l'événement et jusqu'à quand (plusieurs relays en parallèle)
+    private String lockedBy;
+    private Instant lockedUntil;
+    
+    // Constructeurs
+    public OutboxEvent() {}
+    
+    public OutboxEvent(String exchange, String routingKey, UserEvent payload) {
+        this.exchange = exchange;
+        this.routingKey = routingKey;
+        this.payload = payload;
+        this.aggregateId = payload != null ? payload.getUserId() : null;
+        this.createdAt = Instant.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+    
+    // Getters et Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    public String getExchange() { return exchange; }
+    public void setExchange(String exchange) { this.exchange = exchange; }
+    
+    public String getRoutingKey() { return routingKey; }
+    public void setRoutingKey(String routingKey) { this.routingKey = routingKey; }
+    
+    public UserEvent getPayload() { return payload; }
+    public void setPayload(UserEvent payload) { this.payload = payload; }
+    
+    public String getAggregateId() { return aggregateId; }
+    public void setAggregateId(String aggregateId) { this.aggregateId = aggregateId; }
+    
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(Instant nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    
+    public Instant getParkedAt() { return parkedAt; }
+    public void setParkedAt(Instant parkedAt) { this.parkedAt = parkedAt; }
+    
+    public String getLockedBy() { return lockedBy; }
+    public void setLockedBy(String lockedBy) { this.lockedBy = lockedBy; }
+    
+    public Instant getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(Instant lockedUntil) { this.lockedUntil = lockedUntil; }
+    
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+                "id='" + id + '\'' +
+                ", routingKey='" + routingKey + '\'' +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
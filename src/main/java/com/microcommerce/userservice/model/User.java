@@ -1,35 +1,53 @@
 package com.microcommerce.userservice.model;
 
+import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import com.microcommerce.userservice.security.RoleAuthorities;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.text.Normalizer;
+import java.time.Instant;
 import java.util.Collection;
-import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 /**
  * Notre entité User pour MongoDB
  * 
  * Normalement ça implémente UserDetails pour Spring Security
  * Mais on a temporairement désactivé ça pour simplifier le démarrage
+ * 
+ * Recherche par nom : nameLower (nom normalisé) + index (nameLower, _id) pour la recherche
+ * par préfixe paginée, et un index texte sur name pour la recherche par mots
  */
-@Document(collection = "users")
+@Document(collection = "users", language = "none") // Pas de stemming sur des noms propres
+@CompoundIndex(name = "name_prefix_idx", def = "{'nameLower': 1, '_id': 1}")
+@CompoundIndex(name = "role_idx", def = "{'role': 1, '_id': 1}")
 public class User implements UserDetails {
     
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    
     @Id
     private String id;
     
     @NotBlank(message = "Le nom est obligatoire")
     @Size(min = 2, max = 100, message = "Le nom doit faire entre 2 et 100 caractères")
+    @TextIndexed
     private String name; // Un seul champ nom, plus simple que firstName/lastName
     
+    // Nom normalisé (minuscules, sans accents) maintenu par setName, pour la recherche par préfixe
+    private String nameLower;
+    
     @NotBlank(message = "L'email est obligatoire")
     @Email(message = "Format d'email invalide")
     @Indexed(unique = true) // Index unique sur l'email - pas de doublons !
@@ -42,6 +60,11 @@ public class User implements UserDetails {
     // Rôle de l'utilisateur (USER, ADMIN, etc.) - important pour la sécurité
     private String role = "USER";
     
+    // Date d'inscription, remplie par l'audit Mongo à la première sauvegarde (stats d'inscriptions)
+    @CreatedDate
+    @Indexed
+    private Instant createdAt;
+    
     // Champs pour UserDetails
     private boolean accountNonExpired = true;
     private boolean accountNonLocked = true;
@@ -52,7 +75,7 @@ public class User implements UserDetails {
     public User() {}
     
     public User(String name, String email, String password) {
-        this.name = name;
+        setName(name);
         this.email = email;
         this.password = password;
     }
@@ -60,7 +83,7 @@ public class User implements UserDetails {
     // Méthodes de UserDetails pour Spring Security
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+        return RoleAuthorities.of(role); // Liste partagée par rôle, pas d'allocation
     }
     
     @Override
@@ -93,7 +116,12 @@ public class User implements UserDetails {
     public void setId(String id) { this.id = id; }
     
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) {
+        this.name = name;
+        this.nameLower = normalizeName(name);
+    }
+    
+    public String getNameLower() { return nameLower; }
     
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
@@ -104,11 +132,26 @@ public class User implements UserDetails {
     public String getRole() { return role; }
     public void setRole(String role) { this.role = role; }
     
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    
     public void setAccountNonExpired(boolean accountNonExpired) { this.accountNonExpired = accountNonExpired; }
     public void setAccountNonLocked(boolean accountNonLocked) { this.accountNonLocked = accountNonLocked; }
     public void setCredentialsNonExpired(boolean credentialsNonExpired) { this.credentialsNonExpired = credentialsNonExpired; }
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
     
+    /**
+     * Normalise un nom pour la recherche : minuscules, sans accents, espaces simples
+     * "  Éloïse   Dupont " -> "eloise dupont"
+     */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        String withoutAccents = DIACRITICS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+    
     @Override
     public String toString() {
         return "User{" +
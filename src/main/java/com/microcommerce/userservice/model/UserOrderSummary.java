@@ -0,0 +1,61 @@
+package com.microcommerce.userservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Résumé des commandes d'un utilisateur, mis à jour par OrderEventListener
+ * 
+ * L'ID est le userId porté par les événements du service commandes.
+ * Recalculé depuis les commandes connues (user_orders) à chaque événement.
+ * sourceVersion est la somme des versions de ces commandes : elle ne fait que croître,
+ * un recalcul plus ancien ne peut donc pas écraser un plus récent.
+ */
+@Document(collection = "user_order_summaries")
+public class UserOrderSummary {
+    
+    @Id
+    private String userId;
+    
+    private long orderCount;
+    
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal lifetimeSpend; // Commandes annulées exclues
+    
+    private Instant lastOrderAt;
+    private Map<String, Long> statusCounts = new HashMap<>();
+    private Instant updatedAt;
+    private long sourceVersion;
+    
+    // Constructeurs
+    public UserOrderSummary() {}
+    
+    // Getters et Setters
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+    
+    public long getOrderCount() { return orderCount; }
+    public void setOrderCount(long orderCount) { this.orderCount = orderCount; }
+    
+    public BigDecimal getLifetimeSpend() { return lifetimeSpend; }
+    public void setLifetimeSpend(BigDecimal lifetimeSpend) { this.lifetimeSpend = lifetimeSpend; }
+    
+    public Instant getLastOrderAt() { return lastOrderAt; }
+    public void setLastOrderAt(Instant lastOrderAt) { this.lastOrderAt = lastOrderAt; }
+    
+    public Map<String, Long> getStatusCounts() { return statusCounts; }
+    public void setStatusCounts(Map<String, Long> statusCounts) { this.statusCounts = statusCounts; }
+    
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    
+    public long getSourceVersion() { return sourceVersion; }
+    public void setSourceVersion(long sourceVersion) { this.sourceVersion = sourceVersion; }
+}
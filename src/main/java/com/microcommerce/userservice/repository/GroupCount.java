@@ -0,0 +1,43 @@
+package com.microcommerce.userservice.repository;
+
+/**
+ * Résultat d'une agrégation $group : la clé du groupe (_id) et le nombre de documents
+ */
+public class GroupCount {
+    
+    private String id;
+    private long count;
+    
+    // Constructeurs
+    public GroupCount() {}
+    
+    public GroupCount(String id, long count) {
+        this.id = id;
+        this.count = count;
+    }
+    
+    // Getters et Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public void setCount(long count) {
+        this.count = count;
+    }
+    
+    @Override
+    public String toString() {
+        return "GroupCount{" +
+                "id='" + id + '\'' +
+                ", count=" + count +
+                '}';
+    }
+}
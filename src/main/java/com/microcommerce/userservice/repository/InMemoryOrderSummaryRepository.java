@@ -0,0 +1,153 @@
+package com.microcommerce.userservice.repository;
+
+import com.microcommerce.userservice.model.OrderSnapshot;
+import com.microcommerce.userservice.model.UserOrderSummary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OrderSummaryRepository en mémoire, sans MongoDB : --spring.profiles.active=in-memory
+ *
+ * Même contrat que MongoOrderSummaryRepository :
+ * - une commande n'est remplacée que si sa version n'a pas bougé (compare-and-set par commande)
+ * - un résumé n'est remplacé que par un calcul plus récent (sourceVersion plus grande)
+ * - les objets stockés ne sont jamais modifiés, lectures et écritures passent par des copies
+ *
+ * Index userId -> commandes pour le recalcul. Les données sont perdues à l'arrêt.
+ */
+@Repository
+@Profile("in-memory")
+public class InMemoryOrderSummaryRepository implements OrderSummaryRepository {
+
+    private final ConcurrentHashMap<Long, OrderSnapshot> ordersById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Long>> orderIdsByUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, UserOrderSummary> summariesByUser = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<Long, OrderSnapshot> findOrders(Collection<Long> orderIds) {
+        Map<Long, OrderSnapshot> orders = new HashMap<>();
+        for (Long orderId : orderIds) {
+            OrderSnapshot order = ordersById.get(orderId);
+            if (order != null) {
+                orders.put(orderId, copy(order));
+            }
+        }
+        return orders;
+    }
+
+    @Override
+    public boolean writeOrders(List<OrderWrite> writes) {
+        boolean written = true;
+        for (OrderWrite write : writes) {
+            OrderSnapshot order = copy(write.order());
+            Long orderId = order.getOrderId();
+            if (write.insert()) {
+                // Index d'abord : le recalcul d'un autre consommateur doit voir la commande
+                orderIdsByUser.computeIfAbsent(order.getUserId(), userId -> ConcurrentHashMap.newKeySet()).add(orderId);
+                written &= ordersById.putIfAbsent(orderId, order) == null;
+            } else {
+                OrderSnapshot stored = ordersById.computeIfPresent(orderId,
+                    (id, current) -> current.getVersion() == write.readVersion() ? order : current);
+                written &= stored == order;
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public Collection<UserOrderSummary> computeSummaries(Set<String> userIds) {
+        List<UserOrderSummary> summaries = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            Set<Long> orderIds = orderIdsByUser.get(userId);
+            if (orderIds == null) {
+                continue;
+            }
+            UserOrderSummary summary = new UserOrderSummary();
+            summary.setUserId(userId);
+            summary.setLifetimeSpend(BigDecimal.ZERO);
+            for (Long orderId : orderIds) {
+                OrderSnapshot order = ordersById.get(orderId);
+                if (order != null) {
+                    add(summary, order);
+                }
+            }
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+
+    /**
+     * Même calcul que l'agrégation Mongo : les commandes supprimées ne comptent que pour la version,
+     * celles dont la création n'est pas arrivée seulement pour les statuts
+     */
+    private static void add(UserOrderSummary summary, OrderSnapshot order) {
+        summary.setSourceVersion(summary.getSourceVersion() + order.getVersion());
+        if (order.isDeleted()) {
+            return;
+        }
+        if (order.getStatus() != null) {
+            summary.getStatusCounts().merge(order.getStatus(), 1L, Long::sum);
+        }
+        Instant orderedAt = order.getOrderedAt();
+        if (orderedAt == null) {
+            return;
+        }
+        summary.setOrderCount(summary.getOrderCount() + 1);
+        if (!CANCELLED.equals(order.getStatus()) && order.getTotalAmount() != null) {
+            summary.setLifetimeSpend(summary.getLifetimeSpend().add(order.getTotalAmount()));
+        }
+        if (summary.getLastOrderAt() == null || orderedAt.isAfter(summary.getLastOrderAt())) {
+            summary.setLastOrderAt(orderedAt);
+        }
+    }
+
+    @Override
+    public void writeSummaries(Collection<UserOrderSummary> summaries) {
+        Instant now = Instant.now();
+        for (UserOrderSummary summary : summaries) {
+            UserOrderSummary stored = copy(summary);
+            stored.setUpdatedAt(now);
+            summariesByUser.merge(stored.getUserId(), stored,
+                (current, next) -> next.getSourceVersion() > current.getSourceVersion() ? next : current);
+        }
+    }
+
+    @Override
+    public Optional<UserOrderSummary> findSummary(String userId) {
+        return Optional.ofNullable(summariesByUser.get(userId)).map(InMemoryOrderSummaryRepository::copy);
+    }
+
+    private static OrderSnapshot copy(OrderSnapshot order) {
+        OrderSnapshot copy = new OrderSnapshot(order.getOrderId(), order.getUserId());
+        copy.setStatus(order.getStatus());
+        copy.setTotalAmount(order.getTotalAmount());
+        copy.setOrderedAt(order.getOrderedAt());
+        copy.setDeleted(order.isDeleted());
+        copy.setVersion(order.getVersion());
+        copy.setAppliedEventIds(new ArrayList<>(order.getAppliedEventIds()));
+        return copy;
+    }
+
+    private static UserOrderSummary copy(UserOrderSummary summary) {
+        UserOrderSummary copy = new UserOrderSummary();
+        copy.setUserId(summary.getUserId());
+        copy.setOrderCount(summary.getOrderCount());
+        copy.setLifetimeSpend(summary.getLifetimeSpend());
+        copy.setLastOrderAt(summary.getLastOrderAt());
+        copy.setStatusCounts(summary.getStatusCounts() != null ? new HashMap<>(summary.getStatusCounts()) : new HashMap<>());
+        copy.setUpdatedAt(summary.getUpdatedAt());
+        copy.setSourceVersion(summary.getSourceVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,783 @@
+package com.microcommerce.userservice.repository;
+
+import com.microcommerce.userservice.model.User;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.support.ExampleMatcherAccessor;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * UserRepository en mémoire, sans MongoDB : --spring.profiles.active=in-memory
+ *
+ * Pour les benchmarks (coût CPU du service seul), le dev sans base et comme modèle de lecture.
+ *
+ * - documents par ID dans une skip list (les ObjectId en hexa se trient comme en base,
+ *   la pagination keyset sur _id marche pareil)
+ * - index hash unique sur l'email, index hash sur le rôle (IDs triés), index trié (nameLower, id)
+ * - les utilisateurs stockés ne sont jamais modifiés : chaque écriture remplace le document
+ *   par une copie, chaque lecture renvoie une copie (ou une projection immuable)
+ * - les écritures passent une à une sous un verrou, les lectures ne prennent pas de verrou.
+ *   Une lecture par index relit le document et revérifie le critère : un index en cours
+ *   de mise à jour ne renvoie jamais un document qui ne correspond plus
+ * - findAll, streamAllBy et les agrégations travaillent sur un instantané pris sous le verrou
+ *
+ * Les requêtes par exemple (QueryByExample) filtrent un instantané, sans index.
+ * Les données sont perdues à l'arrêt.
+ */
+@Repository
+@Profile("in-memory")
+public class InMemoryUserRepository implements UserRepository {
+
+    // ConcurrentHashMap n'accepte pas de clé null
+    private static final String NO_ROLE = "";
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Champs du document comparés par les requêtes par exemple
+    private static final List<String> EXAMPLE_PROPERTIES = List.of(
+        "id", "name", "nameLower", "email", "password", "role", "createdAt",
+        "accountNonExpired", "accountNonLocked", "credentialsNonExpired", "enabled"
+    );
+
+    private final ConcurrentSkipListMap<String, User> usersById = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, String> idsByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<String>> idsByRole = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<NameKey> idsByName = new ConcurrentSkipListSet<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // ---------------------------------------------------------------- écritures
+
+    @Override
+    public <S extends User> S save(S entity) {
+        writeLock.lock();
+        try {
+            store(entity, false);
+            return entity;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public <S extends User> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends User> S insert(S entity) {
+        writeLock.lock();
+        try {
+            store(entity, true);
+            return entity;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public <S extends User> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        for (S entity : entities) {
+            inserted.add(insert(entity));
+        }
+        return inserted;
+    }
+
+    @Override
+    public Map<Integer, DataAccessException> insertUnordered(List<User> users) {
+        Map<Integer, DataAccessException> failures = new HashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            try {
+                insert(users.get(i));
+            } catch (DuplicateKeyException e) {
+                failures.put(i, e);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public long updatePasswordIfUnchanged(String id, String expectedPassword, String newPassword) {
+        writeLock.lock();
+        try {
+            User current = usersById.get(id);
+            if (current == null || !Objects.equals(current.getPassword(), expectedPassword)) {
+                return 0;
+            }
+            User updated = copy(current);
+            updated.setPassword(newPassword);
+            usersById.put(id, updated);
+            return 1;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        writeLock.lock();
+        try {
+            User removed = usersById.remove(id);
+            if (removed != null) {
+                unindex(removed, null);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(User entity) {
+        if (entity.getId() != null) {
+            deleteById(entity.getId());
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends User> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        writeLock.lock();
+        try {
+            usersById.clear();
+            idsByEmail.clear();
+            idsByRole.clear();
+            idsByName.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Enregistre une copie de l'entité (sous le verrou d'écriture)
+     * Comme Mongo : l'ID et la date de création sont renseignés sur l'entité passée,
+     * un email déjà pris par un autre utilisateur est refusé (index unique)
+     */
+    private void store(User entity, boolean insertOnly) {
+        if (entity.getId() == null) {
+            entity.setId(new ObjectId().toHexString());
+        }
+        String id = entity.getId();
+        User previous = usersById.get(id);
+        if (insertOnly && previous != null) {
+            throw new DuplicateKeyException("E11000 duplicate key error collection: users index: _id_ dup key: " + id);
+        }
+        if (entity.getEmail() != null) {
+            String owner = idsByEmail.get(entity.getEmail());
+            if (owner != null && !owner.equals(id)) {
+                throw new DuplicateKeyException(
+                    "E11000 duplicate key error collection: users index: email dup key: " + entity.getEmail());
+            }
+        }
+        if (previous == null && entity.getCreatedAt() == null) {
+            // Fait par l'audit Mongo (@CreatedDate) en temps normal
+            entity.setCreatedAt(Instant.now());
+        }
+
+        // Document d'abord, puis nouvelles entrées d'index, puis retrait des anciennes :
+        // une lecture concurrente ne voit jamais un utilisateur disparaître pendant une mise à jour
+        User stored = copy(entity);
+        usersById.put(id, stored);
+        index(stored);
+        if (previous != null) {
+            unindex(previous, stored);
+        }
+    }
+
+    private void index(User user) {
+        if (user.getEmail() != null) {
+            idsByEmail.put(user.getEmail(), user.getId());
+        }
+        idsByRole.computeIfAbsent(roleKey(user.getRole()), k -> new ConcurrentSkipListSet<>()).add(user.getId());
+        idsByName.add(new NameKey(user.getNameLower(), user.getId()));
+    }
+
+    /**
+     * Retire les entrées d'index de l'ancienne version qui ne sont plus valables
+     * (replacement null = document supprimé)
+     */
+    private void unindex(User previous, User replacement) {
+        String email = previous.getEmail();
+        if (email != null && (replacement == null || !email.equals(replacement.getEmail()))) {
+            idsByEmail.remove(email, previous.getId());
+        }
+        String role = roleKey(previous.getRole());
+        if (replacement == null || !role.equals(roleKey(replacement.getRole()))) {
+            Set<String> ids = idsByRole.get(role);
+            if (ids != null) {
+                ids.remove(previous.getId());
+            }
+        }
+        NameKey name = new NameKey(previous.getNameLower(), previous.getId());
+        if (replacement == null || !name.equals(new NameKey(replacement.getNameLower(), replacement.getId()))) {
+            idsByName.remove(name);
+        }
+    }
+
+    // ---------------------------------------------------------------- lectures par ID / email
+
+    @Override
+    public Optional<User> findById(String id) {
+        return Optional.ofNullable(usersById.get(id)).map(InMemoryUserRepository::copy);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return usersById.containsKey(id);
+    }
+
+    @Override
+    public List<User> findAllById(Iterable<String> ids) {
+        List<User> users = new ArrayList<>();
+        for (String id : ids) {
+            findById(id).ifPresent(users::add);
+        }
+        return users;
+    }
+
+    @Override
+    public Optional<UserSummary> findSummaryById(String id) {
+        return Optional.ofNullable(usersById.get(id)).map(InMemoryUserRepository::summary);
+    }
+
+    @Override
+    public List<UserSummary> findSummariesByIdIn(Collection<String> ids) {
+        List<UserSummary> summaries = new ArrayList<>(ids.size());
+        for (String id : new HashSet<>(ids)) {
+            User user = usersById.get(id);
+            if (user != null) {
+                summaries.add(summary(user));
+            }
+        }
+        return summaries;
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return byEmail(email).map(InMemoryUserRepository::copy);
+    }
+
+    @Override
+    public Optional<UserSummary> findSummaryByEmail(String email) {
+        return byEmail(email).map(InMemoryUserRepository::summary);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return byEmail(email).isPresent();
+    }
+
+    private Optional<User> byEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        String id = idsByEmail.get(email);
+        User user = id != null ? usersById.get(id) : null;
+        return user != null && email.equals(user.getEmail()) ? Optional.of(user) : Optional.empty();
+    }
+
+    // ---------------------------------------------------------------- lectures par rôle / pages
+
+    @Override
+    public List<User> findByRole(String role) {
+        List<User> users = new ArrayList<>();
+        for (String id : roleIds(role)) {
+            User user = usersById.get(id);
+            if (user != null && Objects.equals(role, user.getRole())) {
+                users.add(copy(user));
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public List<UserSummary> findByIdGreaterThanOrderByIdAsc(String cursor, Pageable pageable) {
+        return page(usersById.tailMap(cursor, false).values().stream(), pageable);
+    }
+
+    @Override
+    public List<UserSummary> findByRoleAndIdGreaterThanOrderByIdAsc(String role, String cursor, Pageable pageable) {
+        Stream<User> users = roleIds(role).tailSet(cursor, false).stream()
+            .map(usersById::get)
+            .filter(user -> user != null && Objects.equals(role, user.getRole()));
+        return page(users, pageable);
+    }
+
+    private List<UserSummary> page(Stream<User> users, Pageable pageable) {
+        Stream<User> paged = users;
+        if (pageable.isPaged()) {
+            paged = paged.skip(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        return paged.map(InMemoryUserRepository::summary).toList();
+    }
+
+    @Override
+    public long countByRole(String role) {
+        // size() parcourt la skip list : appelé rarement
+        return roleIds(role).size();
+    }
+
+    private NavigableSet<String> roleIds(String role) {
+        NavigableSet<String> ids = idsByRole.get(roleKey(role));
+        return ids != null ? ids : new ConcurrentSkipListSet<>();
+    }
+
+    // ---------------------------------------------------------------- recherche par nom
+
+    @Override
+    public List<UserSummary> searchByNamePrefix(String prefix, String afterName, String afterId, int limit) {
+        NameKey start = new NameKey(prefix, "");
+        NameKey after = afterName != null && afterId != null ? new NameKey(afterName, afterId) : null;
+        NavigableSet<NameKey> candidates = after != null && after.compareTo(start) >= 0
+            ? idsByName.tailSet(after, false)
+            : idsByName.tailSet(start, true);
+
+        List<UserSummary> users = new ArrayList<>(Math.min(limit, 256));
+        for (NameKey key : candidates) {
+            // Index trié : au premier nom sans le préfixe, il n'y en a plus après
+            if (users.size() >= limit || !key.nameLower().startsWith(prefix)) {
+                break;
+            }
+            User user = usersById.get(key.id());
+            if (user != null && key.nameLower().equals(user.getNameLower())) {
+                users.add(summary(user));
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Pas d'index inversé : on parcourt tous les utilisateurs, score = nombre de mots trouvés
+     * (l'index texte Mongo sans langue fait à peu près pareil sur des noms courts)
+     */
+    @Override
+    public List<UserSummary> searchByNameTokens(List<String> tokens, int offset, int limit) {
+        Set<String> wanted = new HashSet<>(tokens);
+        List<Map.Entry<User, Integer>> matches = new ArrayList<>();
+        for (User user : usersById.values()) {
+            int score = 0;
+            for (String word : NON_WORD.split(user.getNameLower())) {
+                if (wanted.contains(word)) {
+                    score++;
+                }
+            }
+            if (score > 0) {
+                matches.add(Map.entry(user, score));
+            }
+        }
+        return matches.stream()
+            .sorted(Map.Entry.<User, Integer>comparingByValue().reversed()
+                .thenComparing(entry -> entry.getKey().getId()))
+            .skip(offset)
+            .limit(limit)
+            .map(entry -> summary(entry.getKey()))
+            .toList();
+    }
+
+    // ---------------------------------------------------------------- instantanés et agrégations
+
+    @Override
+    public List<User> findAll() {
+        return snapshot().stream().map(InMemoryUserRepository::copy).toList();
+    }
+
+    @Override
+    public List<User> findAll(Sort sort) {
+        return snapshot().stream()
+            .sorted(comparator(sort))
+            .map(InMemoryUserRepository::copy)
+            .toList();
+    }
+
+    @Override
+    public Page<User> findAll(Pageable pageable) {
+        List<User> all = snapshot();
+        Stream<User> users = all.stream().sorted(comparator(pageable.getSort()));
+        if (pageable.isPaged()) {
+            users = users.skip(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        return new PageImpl<>(users.map(InMemoryUserRepository::copy).toList(), pageable, all.size());
+    }
+
+    @Override
+    public Stream<UserSummary> streamAllBy() {
+        return snapshot().stream().map(InMemoryUserRepository::summary);
+    }
+
+    @Override
+    public long count() {
+        return usersById.size();
+    }
+
+    @Override
+    public List<GroupCount> countGroupedByRole() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (User user : snapshot()) {
+            counts.merge(roleKey(user.getRole()), 1L, Long::sum);
+        }
+        List<GroupCount> groups = new ArrayList<>(counts.size());
+        counts.forEach((role, count) -> groups.add(new GroupCount(NO_ROLE.equals(role) ? null : role, count)));
+        return groups;
+    }
+
+    @Override
+    public List<GroupCount> countSignupsPerHourSince(Instant since) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (User user : snapshot()) {
+            Instant createdAt = user.getCreatedAt();
+            if (createdAt != null && !createdAt.isBefore(since)) {
+                // Même clé que l'agrégation Mongo : "2024-01-15T13:00:00Z"
+                counts.merge(createdAt.truncatedTo(ChronoUnit.HOURS).toString(), 1L, Long::sum);
+            }
+        }
+        List<GroupCount> groups = new ArrayList<>(counts.size());
+        counts.forEach((hour, count) -> groups.add(new GroupCount(hour, count)));
+        return groups;
+    }
+
+    /**
+     * Tous les documents à un instant donné (ordre des IDs)
+     * Les documents stockés ne changent jamais, copier les références suffit
+     */
+    private List<User> snapshot() {
+        writeLock.lock();
+        try {
+            return new ArrayList<>(usersById.values());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static Comparator<User> comparator(Sort sort) {
+        Comparator<User> comparator = Comparator.comparing(User::getId);
+        if (sort.isUnsorted()) {
+            return comparator;
+        }
+        Comparator<User> sorted = null;
+        for (Sort.Order order : sort) {
+            Comparator<User> property = propertyComparator(order.getProperty());
+            if (order.isDescending()) {
+                property = property.reversed();
+            }
+            sorted = sorted == null ? property : sorted.thenComparing(property);
+        }
+        return sorted.thenComparing(comparator);
+    }
+
+    private static Comparator<User> propertyComparator(String property) {
+        return switch (property) {
+            case "id" -> Comparator.comparing(User::getId);
+            case "name" -> Comparator.comparing(User::getName, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "nameLower" -> Comparator.comparing(User::getNameLower, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "email" -> Comparator.comparing(User::getEmail, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "role" -> Comparator.comparing(User::getRole, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case "createdAt" -> Comparator.comparing(User::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+            default -> throw new UnsupportedOperationException("Tri non supporté en mémoire: " + property);
+        };
+    }
+
+    // ---------------------------------------------------------------- QueryByExample
+
+    @Override
+    public <S extends User> Optional<S> findOne(Example<S> example) {
+        // Comme MongoTemplate.findOne : le premier trouvé, sans erreur s'il y en a plusieurs
+        return findBy(example, FluentQuery.FetchableFluentQuery::first);
+    }
+
+    @Override
+    public <S extends User> List<S> findAll(Example<S> example) {
+        return findBy(example, FluentQuery.FetchableFluentQuery::all);
+    }
+
+    @Override
+    public <S extends User> List<S> findAll(Example<S> example, Sort sort) {
+        return findBy(example, query -> query.sortBy(sort).all());
+    }
+
+    @Override
+    public <S extends User> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return findBy(example, query -> query.page(pageable));
+    }
+
+    @Override
+    public <S extends User> long count(Example<S> example) {
+        return findBy(example, FluentQuery.FetchableFluentQuery::count);
+    }
+
+    @Override
+    public <S extends User> boolean exists(Example<S> example) {
+        return findBy(example, FluentQuery.FetchableFluentQuery::exists);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends User, R> R findBy(Example<S> example,
+                                        Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        Predicate<User> criteria = exampleCriteria(example);
+        List<User> matches = snapshot().stream().filter(criteria).toList();
+        return queryFunction.apply(new ExampleQuery<>(matches, Sort.unsorted(), 0, user -> (S) copy(user)));
+    }
+
+    /**
+     * Critère équivalent à celui que MongoExampleMapper construit :
+     * propriétés non nulles de l'exemple (ou nulles avec NullHandler.INCLUDE), chemins ignorés,
+     * transformations, comparaison des chaînes (exacte, début, fin, contient, regex, casse)
+     * et ET / OU selon le matcher
+     */
+    private static Predicate<User> exampleCriteria(Example<? extends User> example) {
+        ExampleMatcher matcher = example.getMatcher();
+        ExampleMatcherAccessor accessor = new ExampleMatcherAccessor(matcher);
+        List<Predicate<User>> criteria = new ArrayList<>();
+        for (String property : EXAMPLE_PROPERTIES) {
+            if (accessor.isIgnoredPath(property)) {
+                continue;
+            }
+            Object expected = accessor.getValueTransformerForPath(property)
+                .apply(Optional.ofNullable(propertyValue(example.getProbe(), property)))
+                .orElse(null);
+            if (expected == null) {
+                if (accessor.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+                    criteria.add(user -> propertyValue(user, property) == null);
+                }
+                continue;
+            }
+            Predicate<Object> value = valueCriterion(expected, accessor.getStringMatcherForPath(property),
+                accessor.isIgnoreCaseForPath(property));
+            criteria.add(user -> value.test(propertyValue(user, property)));
+        }
+
+        Class<?> probeType = example.getProbeType();
+        if (criteria.isEmpty()) {
+            return probeType::isInstance;
+        }
+        Predicate<User> combined = matcher.isAllMatching()
+            ? user -> criteria.stream().allMatch(criterion -> criterion.test(user))
+            : user -> criteria.stream().anyMatch(criterion -> criterion.test(user));
+        return user -> probeType.isInstance(user) && combined.test(user);
+    }
+
+    private static Predicate<Object> valueCriterion(Object expected, ExampleMatcher.StringMatcher stringMatcher,
+                                                    boolean ignoreCase) {
+        if (!(expected instanceof String wanted)) {
+            return actual -> Objects.equals(expected, actual);
+        }
+        if (stringMatcher == ExampleMatcher.StringMatcher.REGEX) {
+            Pattern pattern = Pattern.compile(wanted, ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+            return actual -> actual instanceof String value && pattern.matcher(value).find();
+        }
+        String normalized = ignoreCase ? wanted.toLowerCase(Locale.ROOT) : wanted;
+        return actual -> {
+            if (!(actual instanceof String value)) {
+                return false;
+            }
+            String candidate = ignoreCase ? value.toLowerCase(Locale.ROOT) : value;
+            return switch (stringMatcher) {
+                case STARTING -> candidate.startsWith(normalized);
+                case ENDING -> candidate.endsWith(normalized);
+                case CONTAINING -> candidate.contains(normalized);
+                default -> candidate.equals(normalized);
+            };
+        };
+    }
+
+    private static Object propertyValue(User user, String property) {
+        return switch (property) {
+            case "id" -> user.getId();
+            case "name" -> user.getName();
+            case "nameLower" -> user.getNameLower();
+            case "email" -> user.getEmail();
+            case "password" -> user.getPassword();
+            case "role" -> user.getRole();
+            case "createdAt" -> user.getCreatedAt();
+            case "accountNonExpired" -> user.isAccountNonExpired();
+            case "accountNonLocked" -> user.isAccountNonLocked();
+            case "credentialsNonExpired" -> user.isCredentialsNonExpired();
+            case "enabled" -> user.isEnabled();
+            default -> throw new IllegalArgumentException("Propriété inconnue: " + property);
+        };
+    }
+
+    /**
+     * FluentQuery sur les documents trouvés par une requête par exemple
+     * Les copies sont complètes : project(...) ne retire pas de champs
+     */
+    private record ExampleQuery<T>(List<User> matches, Sort sort, int limit, Function<User, T> mapper)
+            implements FluentQuery.FetchableFluentQuery<T> {
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> sortBy(Sort sort) {
+            return new ExampleQuery<>(matches, this.sort.and(sort), limit, mapper);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> limit(int limit) {
+            return new ExampleQuery<>(matches, sort, limit, mapper);
+        }
+
+        @Override
+        public <R> FluentQuery.FetchableFluentQuery<R> as(Class<R> resultType) {
+            if (resultType.isAssignableFrom(User.class)) {
+                return new ExampleQuery<>(matches, sort, limit, user -> resultType.cast(copy(user)));
+            }
+            if (resultType == UserSummary.class) {
+                return new ExampleQuery<>(matches, sort, limit, user -> resultType.cast(summary(user)));
+            }
+            throw new UnsupportedOperationException("Projection non supportée en mémoire: " + resultType.getName());
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> project(Collection<String> properties) {
+            return this;
+        }
+
+        @Override
+        public T oneValue() {
+            List<T> results = new ExampleQuery<>(matches, sort, 2, mapper).all();
+            if (results.size() > 1) {
+                throw new IncorrectResultSizeDataAccessException(1);
+            }
+            return results.isEmpty() ? null : results.get(0);
+        }
+
+        @Override
+        public T firstValue() {
+            List<T> results = new ExampleQuery<>(matches, sort, 1, mapper).all();
+            return results.isEmpty() ? null : results.get(0);
+        }
+
+        @Override
+        public List<T> all() {
+            return stream().toList();
+        }
+
+        @Override
+        public Page<T> page(Pageable pageable) {
+            Stream<User> users = sorted(sort.and(pageable.getSort()));
+            if (pageable.isPaged()) {
+                users = users.skip(pageable.getOffset()).limit(pageable.getPageSize());
+            }
+            return new PageImpl<>(users.map(mapper).toList(), pageable, matches.size());
+        }
+
+        @Override
+        public Stream<T> stream() {
+            Stream<User> users = sorted(sort);
+            return (limit > 0 ? users.limit(limit) : users).map(mapper);
+        }
+
+        @Override
+        public long count() {
+            return limit > 0 ? Math.min(limit, matches.size()) : matches.size();
+        }
+
+        @Override
+        public boolean exists() {
+            return !matches.isEmpty();
+        }
+
+        private Stream<User> sorted(Sort sort) {
+            return matches.stream().sorted(comparator(sort));
+        }
+    }
+
+    // ---------------------------------------------------------------- copies
+
+    private static User copy(User user) {
+        User copy = new User(user.getName(), user.getEmail(), user.getPassword());
+        copy.setId(user.getId());
+        copy.setRole(user.getRole());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setAccountNonExpired(user.isAccountNonExpired());
+        copy.setAccountNonLocked(user.isAccountNonLocked());
+        copy.setCredentialsNonExpired(user.isCredentialsNonExpired());
+        copy.setEnabled(user.isEnabled());
+        return copy;
+    }
+
+    private static UserSummary summary(User user) {
+        return new Summary(user.getId(), user.getName(), user.getEmail(), user.getRole());
+    }
+
+    private static String roleKey(String role) {
+        return role != null ? role : NO_ROLE;
+    }
+
+    /**
+     * Projection immuable, équivalent de ce que Spring Data renvoie pour UserSummary
+     */
+    private record Summary(String id, String name, String email, String role) implements UserSummary {
+        @Override
+        public String getId() { return id; }
+
+        @Override
+        public String getName() { return name; }
+
+        @Override
+        public String getEmail() { return email; }
+
+        @Override
+        public String getRole() { return role; }
+    }
+
+    /**
+     * Entrée de l'index sur le nom, triée comme l'index Mongo (nameLower, _id)
+     */
+    private record NameKey(String nameLower, String id) implements Comparable<NameKey> {
+        NameKey {
+            nameLower = nameLower != null ? nameLower : "";
+        }
+
+        @Override
+        public int compareTo(NameKey other) {
+            int byName = nameLower.compareTo(other.nameLower);
+            return byName != 0 ? byName : id.compareTo(other.id);
+        }
+    }
+}
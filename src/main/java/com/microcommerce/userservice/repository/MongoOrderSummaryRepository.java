@@ -0,0 +1,196 @@
+package com.microcommerce.userservice.repository;
+
+import com.microcommerce.userservice.model.OrderSnapshot;
+import com.microcommerce.userservice.model.UserOrderSummary;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Commandes (user_orders) et résumés (user_order_summaries) dans MongoDB
+ *
+ * - écritures des commandes en un bulk, chacune conditionnée par sa version (compare-and-set)
+ * - résumés recalculés en une agrégation pour tout le lot d'utilisateurs
+ */
+@Repository
+@Profile("!in-memory")
+public class MongoOrderSummaryRepository implements OrderSummaryRepository {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<Long, OrderSnapshot> findOrders(Collection<Long> orderIds) {
+        return mongoTemplate.find(Query.query(Criteria.where("orderId").in(orderIds)), OrderSnapshot.class).stream()
+            .collect(Collectors.toMap(OrderSnapshot::getOrderId, order -> order));
+    }
+
+    @Override
+    public boolean writeOrders(List<OrderWrite> writes) {
+        if (writes.isEmpty()) {
+            return true;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderSnapshot.class);
+        for (OrderWrite write : writes) {
+            if (write.insert()) {
+                bulk.insert(write.order());
+            } else {
+                bulk.replaceOne(versionMatches(write.order().getOrderId(), write.readVersion()), write.order());
+            }
+        }
+        return executeWithoutConflict(bulk, writes.size());
+    }
+
+    // Les commandes écrites avant l'ajout de la version n'ont pas le champ
+    private static Query versionMatches(Long orderId, long version) {
+        Criteria criteria = Criteria.where("orderId").is(orderId);
+        if (version == 0) {
+            return Query.query(criteria.orOperator(
+                Criteria.where("version").is(0L), Criteria.where("version").exists(false)));
+        }
+        return Query.query(criteria.and("version").is(version));
+    }
+
+    /**
+     * Exécute les écritures conditionnelles, retourne false si l'une a perdu la course
+     * (version changée, ou commande créée entre-temps par un autre consommateur)
+     */
+    private boolean executeWithoutConflict(BulkOperations bulk, int expected) {
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            return false;
+        }
+        return result.getMatchedCount() + result.getInsertedCount() == expected;
+    }
+
+    @Override
+    public Collection<UserOrderSummary> computeSummaries(Set<String> userIds) {
+        Document active = new Document("$ne", List.of("$deleted", true));
+        Document ordered = new Document("$and", List.of(active,
+            new Document("$gt", Arrays.asList("$orderedAt", null))));
+        Document counted = new Document("$and", List.of(ordered,
+            new Document("$ne", List.of("$status", CANCELLED))));
+        Decimal128 zero = new Decimal128(BigDecimal.ZERO);
+
+        // Une ligne par (utilisateur, statut), recombinées ensuite par utilisateur
+        List<Document> pipeline = List.of(
+            new Document("$match", new Document("userId", new Document("$in", new ArrayList<>(userIds)))),
+            new Document("$group", new Document("_id", new Document("userId", "$userId").append("status", "$status"))
+                .append("orders", sum(cond(active, 1, 0)))
+                .append("orderCount", sum(cond(ordered, 1, 0)))
+                .append("spend", sum(cond(counted, new Document("$ifNull", List.of("$totalAmount", zero)), zero)))
+                .append("lastOrderAt", new Document("$max", cond(ordered, "$orderedAt", null)))
+                .append("version", sum("$version")))
+        );
+
+        Map<String, UserOrderSummary> summaries = new HashMap<>();
+        String collection = mongoTemplate.getCollectionName(OrderSnapshot.class);
+        for (Document row : mongoTemplate.getCollection(collection).aggregate(pipeline)) {
+            Document id = row.get("_id", Document.class);
+            UserOrderSummary summary = summaries.computeIfAbsent(id.getString("userId"), userId -> {
+                UserOrderSummary created = new UserOrderSummary();
+                created.setUserId(userId);
+                created.setLifetimeSpend(BigDecimal.ZERO);
+                return created;
+            });
+            summary.setOrderCount(summary.getOrderCount() + row.get("orderCount", Number.class).longValue());
+            summary.setLifetimeSpend(summary.getLifetimeSpend().add(toBigDecimal(row.get("spend"))));
+            summary.setSourceVersion(summary.getSourceVersion() + row.get("version", Number.class).longValue());
+
+            Date lastOrderAt = row.getDate("lastOrderAt");
+            if (lastOrderAt != null && (summary.getLastOrderAt() == null
+                    || lastOrderAt.toInstant().isAfter(summary.getLastOrderAt()))) {
+                summary.setLastOrderAt(lastOrderAt.toInstant());
+            }
+            long orders = row.get("orders", Number.class).longValue();
+            if (id.getString("status") != null && orders > 0) {
+                summary.getStatusCounts().put(id.getString("status"), orders);
+            }
+        }
+        return summaries.values();
+    }
+
+    @Override
+    public void writeSummaries(Collection<UserOrderSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserOrderSummary.class);
+        for (UserOrderSummary summary : summaries) {
+            Update update = new Update()
+                .set("orderCount", summary.getOrderCount())
+                .set("lifetimeSpend", new Decimal128(summary.getLifetimeSpend()))
+                .set("lastOrderAt", summary.getLastOrderAt())
+                .set("statusCounts", summary.getStatusCounts())
+                .set("sourceVersion", summary.getSourceVersion())
+                .set("updatedAt", now);
+            // Résumé déjà plus récent : l'upsert tente un insert et bute sur l'_id, c'est voulu
+            Query olderOrMissing = Query.query(Criteria.where("userId").is(summary.getUserId()).orOperator(
+                Criteria.where("sourceVersion").lt(summary.getSourceVersion()),
+                Criteria.where("sourceVersion").exists(false)));
+            bulk.upsert(olderOrMissing, update);
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Optional<UserOrderSummary> findSummary(String userId) {
+        return Optional.ofNullable(mongoTemplate.findById(userId, UserOrderSummary.class));
+    }
+
+    private static Document cond(Object condition, Object then, Object otherwise) {
+        return new Document("$cond", Arrays.asList(condition, then, otherwise));
+    }
+
+    private static Document sum(Object expression) {
+        return new Document("$sum", expression);
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        return value instanceof Number number ? new BigDecimal(number.toString()) : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,55 @@
+package com.microcommerce.userservice.repository;
+
+import com.microcommerce.userservice.model.OrderSnapshot;
+import com.microcommerce.userservice.model.UserOrderSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Stockage des commandes connues et des résumés de commandes par utilisateur
+ *
+ * La logique (événements appliqués, versions, recalcul) est dans OrderSummaryService,
+ * ici seulement les lectures et écritures : MongoOrderSummaryRepository en temps normal,
+ * InMemoryOrderSummaryRepository avec le profil in-memory.
+ */
+public interface OrderSummaryRepository {
+
+    // Statut d'une commande annulée : comptée dans statusCounts, pas dans le montant dépensé
+    String CANCELLED = "CANCELLED";
+
+    /**
+     * État connu des commandes demandées (les commandes jamais vues sont absentes)
+     * Les objets retournés sont à l'appelant, il peut les modifier avant de les réécrire
+     */
+    Map<Long, OrderSnapshot> findOrders(Collection<Long> orderIds);
+
+    /**
+     * Écrit les commandes, chacune seulement si personne ne l'a écrite depuis la lecture
+     * (même version, ou toujours absente pour une nouvelle commande)
+     * Retourne false si au moins une a perdu la course : les autres sont quand même écrites
+     */
+    boolean writeOrders(List<OrderWrite> writes);
+
+    /**
+     * Résumés recalculés depuis les commandes des utilisateurs (sans les écrire)
+     * sourceVersion = somme des versions des commandes de l'utilisateur
+     */
+    Collection<UserOrderSummary> computeSummaries(Set<String> userIds);
+
+    /**
+     * Écrit les résumés, sauf ceux déjà remplacés par un calcul plus récent (sourceVersion)
+     */
+    void writeSummaries(Collection<UserOrderSummary> summaries);
+
+    Optional<UserOrderSummary> findSummary(String userId);
+
+    /**
+     * Une commande à écrire : readVersion est la version lue, insert si elle n'existait pas
+     */
+    record OrderWrite(OrderSnapshot order, long readVersion, boolean insert) {
+    }
+}
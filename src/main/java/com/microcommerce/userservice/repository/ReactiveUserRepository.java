@@ -0,0 +1,54 @@
+package com.microcommerce.userservice.repository;
+
+import com.microcommerce.userservice.model.User;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Repository réactif pour les lectures d'utilisateurs (profil "reactive")
+ * 
+ * Mêmes requêtes que UserRepository mais sur le driver Reactive Streams :
+ * aucun thread n'attend MongoDB, les résultats arrivent au fil du curseur
+ * et au rythme où le client les consomme (back-pressure).
+ * Les écritures restent sur UserRepository.
+ */
+@Repository
+@Profile("reactive")
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String>, ReactiveUserSearchRepository {
+    
+    /**
+     * Infos publiques d'un utilisateur par ID (sans le hash du mot de passe)
+     */
+    Mono<UserSummary> findSummaryById(String id);
+    
+    /**
+     * Infos publiques de plusieurs utilisateurs en une requête
+     */
+    Flux<UserSummary> findSummariesByIdIn(Collection<String> ids);
+    
+    /**
+     * Page suivante après le curseur (ID), triée par ID
+     */
+    Flux<UserSummary> findByIdGreaterThanOrderByIdAsc(String cursor, Pageable pageable);
+    
+    /**
+     * Page suivante par rôle après le curseur (ID)
+     */
+    Flux<UserSummary> findByRoleAndIdGreaterThanOrderByIdAsc(String role, String cursor, Pageable pageable);
+    
+    /**
+     * Tous les utilisateurs après le curseur, sans limite (streaming NDJSON)
+     */
+    Flux<UserSummary> findByIdGreaterThanOrderByIdAsc(String cursor);
+    
+    /**
+     * Tous les utilisateurs d'un rôle après le curseur, sans limite (streaming NDJSON)
+     */
+    Flux<UserSummary> findByRoleAndIdGreaterThanOrderByIdAsc(String role, String cursor);
+}
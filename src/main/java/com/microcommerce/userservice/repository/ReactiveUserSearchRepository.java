@@ -0,0 +1,23 @@
+package com.microcommerce.userservice.repository;
+
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Recherche d'utilisateurs par nom, version réactive (fragment custom de ReactiveUserRepository)
+ * 
+ * Mêmes requêtes que UserSearchRepository, lues sans bloquer de thread
+ */
+public interface ReactiveUserSearchRepository {
+    
+    /**
+     * Utilisateurs dont le nom normalisé commence par prefix, triés par (nameLower, _id)
+     */
+    Flux<UserSummary> searchByNamePrefix(String prefix, String afterName, String afterId, int limit);
+    
+    /**
+     * Recherche plein texte sur les mots du nom, triée par pertinence
+     */
+    Flux<UserSummary> searchByNameTokens(List<String> tokens, int offset, int limit);
+}
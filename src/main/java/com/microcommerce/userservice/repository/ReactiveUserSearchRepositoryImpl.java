@@ -0,0 +1,33 @@
+package com.microcommerce.userservice.repository;
+
+import com.microcommerce.userservice.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Implémentation réactive de la recherche par nom (mêmes requêtes que UserSearchRepositoryImpl)
+ */
+public class ReactiveUserSearchRepositoryImpl implements ReactiveUserSearchRepository {
+    
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    
+    @Override
+    public Flux<UserSummary> searchByNamePrefix(String prefix, String afterName, String afterId, int limit) {
+        return reactiveMongoTemplate.query(User.class)
+            .as(UserSummary.class)
+            .matching(UserSearchRepositoryImpl.prefixQuery(prefix, afterName, afterId, limit))
+            .all();
+    }
+    
+    @Override
+    public Flux<UserSummary> searchByNameTokens(List<String> tokens, int offset, int limit) {
+        return reactiveMongoTemplate.query(User.class)
+            .as(UserSummary.class)
+            .matching(UserSearchRepositoryImpl.tokensQuery(tokens, offset, limit))
+            .all();
+    }
+}
@@ -0,0 +1,19 @@
+package com.microcommerce.userservice.repository;
+
+import com.microcommerce.userservice.model.User;
+import org.springframework.dao.DataAccessException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Insertion en masse d'utilisateurs (fragment custom de UserRepository, cf. UserImportService)
+ */
+public interface UserBulkRepository {
+
+    /**
+     * Insère tout le lot sans s'arrêter à la première erreur (insert bulk non ordonné)
+     * Retourne les erreurs par position dans le lot : DuplicateKeyException pour un email déjà pris
+     */
+    Map<Integer, DataAccessException> insertUnordered(List<User> users);
+}
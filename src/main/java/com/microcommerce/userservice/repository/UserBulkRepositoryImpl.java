@@ -0,0 +1,46 @@
+package com.microcommerce.userservice.repository;
+
+import com.microcommerce.userservice.model.User;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Insert bulk non ordonné (trouvé par Spring Data grâce au suffixe Impl)
+ * Un seul aller-retour par lot, une ligne en double n'empêche pas les autres d'être insérées
+ */
+public class UserBulkRepositoryImpl implements UserBulkRepository {
+
+    // Code d'erreur Mongo pour une violation d'index unique
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<Integer, DataAccessException> insertUnordered(List<User> users) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        bulk.insert(users);
+
+        Map<Integer, DataAccessException> failures = new HashMap<>();
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getCode() == DUPLICATE_KEY
+                    ? new DuplicateKeyException(error.getMessage())
+                    : new DataIntegrityViolationException(error.getMessage()));
+            }
+        }
+        return failures;
+    }
+}
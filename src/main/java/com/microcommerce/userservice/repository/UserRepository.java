@@ -1,21 +1,38 @@
 package com.microcommerce.userservice.repository;
 
 import com.microcommerce.userservice.model.User;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository pour les opérations CRUD sur les utilisateurs
  * 
  * MongoDB nous donne plein de méthodes automatiques grâce aux noms des méthodes
  * Spring Data fait la magie derrière pour générer les requêtes
+ * 
+ * Les lectures pour les listes et les appels internes passent par la projection
+ * UserSummary (id/nom/email/rôle seulement), l'entité complète est pour l'auth et les écritures
+ * 
+ * La recherche par nom est dans UserSearchRepository (requêtes MongoTemplate),
+ * l'insert en masse de l'import dans UserBulkRepository
+ * 
+ * Avec le profil in-memory, Spring Data ne crée pas ce repository : c'est
+ * InMemoryUserRepository qui implémente le même contrat
  */
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+@Profile("!in-memory")
+public interface UserRepository extends MongoRepository<User, String>, UserSearchRepository, UserBulkRepository {
     
     /**
      * Trouve un utilisateur par son email
@@ -23,28 +40,58 @@ public interface UserRepository extends MongoRepository<User, String> {
      */
     Optional<User> findByEmail(String email);
     
+    /**
+     * Infos publiques d'un utilisateur par ID (sans le hash du mot de passe)
+     */
+    Optional<UserSummary> findSummaryById(String id);
+    
+    /**
+     * Infos publiques d'un utilisateur par email
+     */
+    Optional<UserSummary> findSummaryByEmail(String email);
+    
+    /**
+     * Infos publiques de plusieurs utilisateurs en une requête ($in)
+     */
+    List<UserSummary> findSummariesByIdIn(Collection<String> ids);
+    
     /**
      * Vérifie si un email existe déjà
      * Pratique pour éviter les doublons lors de l'inscription
      */
     boolean existsByEmail(String email);
     
+    /**
+     * Remplace le hash du mot de passe seulement s'il n'a pas changé entre-temps
+     * Utilisé pour re-hacher au login sans écraser une modif concurrente
+     * Retourne le nombre de documents modifiés (0 ou 1)
+     */
+    @Query("{'_id': ?0, 'password': ?1}")
+    @Update("{'$set': {'password': ?2}}")
+    long updatePasswordIfUnchanged(String id, String expectedPassword, String newPassword);
+    
     /**
      * Trouve tous les utilisateurs par rôle
      * Utile pour lister les admins, les clients, etc.
      */
     List<User> findByRole(String role);
     
-
+    /**
+     * Page d'utilisateurs après un curseur (pagination keyset sur _id)
+     * Le curseur est l'ID du dernier utilisateur de la page précédente
+     */
+    List<UserSummary> findByIdGreaterThanOrderByIdAsc(String cursor, Pageable pageable);
     
     /**
-     * Recherche d'utilisateurs par nom (insensible à la casse)
-     * Pratique pour une barre de recherche admin
+     * Page d'utilisateurs d'un rôle après un curseur
      */
-    @Query("{'name': {'$regex': ?0, '$options': 'i'}}")
-    List<User> searchByName(String name);
+    List<UserSummary> findByRoleAndIdGreaterThanOrderByIdAsc(String role, String cursor, Pageable pageable);
     
-
+    /**
+     * Tous les utilisateurs en flux, lus au fil du curseur Mongo (pour l'export)
+     * Attention : le Stream doit être fermé (try-with-resources)
+     */
+    Stream<UserSummary> streamAllBy();
     
     /**
      * Compte le nombre d'utilisateurs par rôle
@@ -53,9 +100,18 @@ public interface UserRepository extends MongoRepository<User, String> {
     long countByRole(String role);
     
     /**
-     * Trouve les utilisateurs créés après une certaine date
-     * Pour des stats de croissance
+     * Nombre d'utilisateurs par rôle en une seule passe (recalage de UserStatsService)
+     */
+    @Aggregation("{'$group': {'_id': '$role', 'count': {'$sum': 1}}}")
+    List<GroupCount> countGroupedByRole();
+    
+    /**
+     * Inscriptions par heure depuis une date (clé : "2024-01-15T13:00:00Z")
+     * Utilise l'index sur createdAt
      */
-    @Query("{'createdAt': {'$gte': ?0}}")
-    List<User> findUsersCreatedAfter(String date);
+    @Aggregation(pipeline = {
+        "{'$match': {'createdAt': {'$gte': ?0}}}",
+        "{'$group': {'_id': {'$dateToString': {'format': '%Y-%m-%dT%H:00:00Z', 'date': '$createdAt'}}, 'count': {'$sum': 1}}}"
+    })
+    List<GroupCount> countSignupsPerHourSince(Instant since);
 }
\ No newline at end of file
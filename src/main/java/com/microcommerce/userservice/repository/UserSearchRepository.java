@@ -0,0 +1,24 @@
+package com.microcommerce.userservice.repository;
+
+import java.util.List;
+
+/**
+ * Recherche d'utilisateurs par nom (fragment custom de UserRepository)
+ * 
+ * Les requêtes sont construites à la main avec MongoTemplate (cf. UserSearchRepositoryImpl)
+ * parce que la pagination keyset sur (nameLower, _id) ne s'exprime pas avec les noms de méthodes
+ */
+public interface UserSearchRepository {
+    
+    /**
+     * Utilisateurs dont le nom normalisé commence par prefix, triés par (nameLower, _id)
+     * afterName/afterId : dernier élément de la page précédente (null pour la première page)
+     * Le préfixe est échappé, il n'est jamais interprété comme une regex
+     */
+    List<UserSummary> searchByNamePrefix(String prefix, String afterName, String afterId, int limit);
+    
+    /**
+     * Recherche plein texte sur les mots du nom (index texte), triée par pertinence
+     */
+    List<UserSummary> searchByNameTokens(List<String> tokens, int offset, int limit);
+}
@@ -0,0 +1,92 @@
+package com.microcommerce.userservice.repository;
+
+import com.microcommerce.userservice.model.User;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+
+import java.util.List;
+
+/**
+ * Implémentation de la recherche par nom (trouvée par Spring Data grâce au suffixe Impl)
+ * 
+ * - préfixe : regex ancrée et sensible à la casse sur nameLower => Mongo la transforme
+ *   en bornes sur l'index (nameLower, _id), plus de scan de la collection
+ * - mots : $text sur l'index texte de name, trié par score
+ */
+public class UserSearchRepositoryImpl implements UserSearchRepository {
+    
+    // Caractères spéciaux des regex qu'on échappe dans le préfixe
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Override
+    public List<UserSummary> searchByNamePrefix(String prefix, String afterName, String afterId, int limit) {
+        return mongoTemplate.query(User.class)
+            .as(UserSummary.class)
+            .matching(prefixQuery(prefix, afterName, afterId, limit))
+            .all();
+    }
+    
+    @Override
+    public List<UserSummary> searchByNameTokens(List<String> tokens, int offset, int limit) {
+        return mongoTemplate.query(User.class)
+            .as(UserSummary.class)
+            .matching(tokensQuery(tokens, offset, limit))
+            .all();
+    }
+    
+    /**
+     * Requête par préfixe de nom, après le curseur (nameLower, _id) s'il y en a un
+     * (partagée avec la version réactive, cf. ReactiveUserSearchRepositoryImpl)
+     */
+    static Query prefixQuery(String prefix, String afterName, String afterId, int limit) {
+        Criteria criteria = Criteria.where("nameLower").regex("^" + escapeRegex(prefix));
+        if (afterName != null && afterId != null) {
+            // Après le curseur : nom plus grand, ou même nom et ID plus grand
+            criteria = criteria.orOperator(
+                Criteria.where("nameLower").gt(afterName),
+                new Criteria().andOperator(
+                    Criteria.where("nameLower").is(afterName),
+                    Criteria.where("id").gt(new ObjectId(afterId))
+                )
+            );
+        }
+        
+        return new Query(criteria)
+            .with(Sort.by(Sort.Direction.ASC, "nameLower", "id"))
+            .limit(limit);
+    }
+    
+    /**
+     * Requête plein texte sur les mots du nom, triée par pertinence
+     */
+    static Query tokensQuery(List<String> tokens, int offset, int limit) {
+        return TextQuery.queryText(TextCriteria.forDefaultLanguage().matchingAny(tokens.toArray(new String[0])))
+            .sortByScore()
+            .skip(offset)
+            .limit(limit);
+    }
+    
+    /**
+     * Échappe les caractères spéciaux pour que la saisie reste un préfixe littéral
+     */
+    static String escapeRegex(String input) {
+        StringBuilder escaped = new StringBuilder(input.length() + 8);
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (REGEX_META.indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
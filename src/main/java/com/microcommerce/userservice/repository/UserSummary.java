@@ -0,0 +1,19 @@
+package com.microcommerce.userservice.repository;
+
+/**
+ * Projection "publique" d'un utilisateur : juste id, nom, email et rôle
+ * 
+ * Spring Data ne demande que ces champs à MongoDB (pas de hash de mot de passe,
+ * pas des flags UserDetails) : moins d'octets sur le réseau, moins de désérialisation.
+ * L'entité User complète reste réservée à l'authentification et aux écritures.
+ */
+public interface UserSummary {
+    
+    String getId();
+    
+    String getName();
+    
+    String getEmail();
+    
+    String getRole();
+}
@@ -0,0 +1,103 @@
+package com.microcommerce.userservice.security;
+
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Encodeur multi-algos qui sait quand un hash stocké doit être refait
+ *
+ * Le hash stocké commence par l'id de l'algo ({bcrypt}, {argon2}, {scrypt}, {pbkdf2}).
+ * Les vieux hashs sans préfixe sont des BCrypt (c'est ce qu'on stockait avant) :
+ * déjà au coût cible avec la cible bcrypt, ils ne sont pas refaits (pas de vague
+ * de re-hash au premier login de chaque utilisateur après la mise en prod).
+ *
+ * upgradeEncoding() renvoie true si l'algo n'est plus la cible OU si le coût stocké
+ * est différent du coût configuré (dans les deux sens : on peut aussi baisser le coût
+ * pour tenir les SLO du login). AuthService re-hache alors au login suivant.
+ * Limite : PBKDF2 ne stocke pas ses itérations dans le hash, donc un changement
+ * d'itérations seul n'est pas détecté.
+ */
+public class CostAwarePasswordEncoder implements PasswordEncoder {
+
+    private static final String PREFIX = "{";
+    private static final String SUFFIX = "}";
+    private static final String BCRYPT = "bcrypt";
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[aby]?\\$\\d\\d\\$");
+
+    private final DelegatingPasswordEncoder delegate;
+    private final String idForEncode;
+    // Début attendu du hash (après le préfixe {id}) avec les paramètres de coût cibles
+    private final String expectedHashPrefix;
+
+    public CostAwarePasswordEncoder(String idForEncode, Map<String, PasswordEncoder> encoders,
+                                    PasswordEncoder legacyEncoder, String expectedHashPrefix) {
+        this.delegate = new DelegatingPasswordEncoder(idForEncode, encoders);
+        this.delegate.setDefaultPasswordEncoderForMatches(legacyEncoder);
+        this.idForEncode = idForEncode;
+        this.expectedHashPrefix = expectedHashPrefix;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return delegate.matches(rawPassword, encodedPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return true;
+        }
+        String algorithmPrefix = PREFIX + idForEncode + SUFFIX;
+        if (!encodedPassword.startsWith(algorithmPrefix)) {
+            // Hash legacy sans préfixe : un BCrypt, à garder s'il est déjà au coût cible
+            boolean legacyBcrypt = !encodedPassword.startsWith(PREFIX) && BCRYPT.equals(idForEncode);
+            return !legacyBcrypt || !hasExpectedParameters(encodedPassword);
+        }
+        if (delegate.upgradeEncoding(encodedPassword)) {
+            return true; // Coût plus faible que la cible (vérif native de l'algo)
+        }
+        return !hasExpectedParameters(encodedPassword.substring(algorithmPrefix.length()));
+    }
+
+    private boolean hasExpectedParameters(String hash) {
+        if (expectedHashPrefix == null) {
+            return true;
+        }
+        if (BCRYPT.equals(idForEncode)) {
+            // $2a$, $2b$ et $2y$ ne diffèrent que par la version : seul le coût compte
+            return BCRYPT_HASH.matcher(hash).lookingAt()
+                && hash.startsWith(expectedHashPrefix.substring(expectedHashPrefix.indexOf('$', 1)), hash.indexOf('$', 1));
+        }
+        return hash.startsWith(expectedHashPrefix);
+    }
+
+    /**
+     * Début d'un hash BCrypt au coût donné : $2a$12$
+     */
+    public static String bcryptPrefix(int strength) {
+        return String.format("$2a$%02d$", strength);
+    }
+
+    /**
+     * Début d'un hash Argon2id avec ces paramètres : $argon2id$v=19$m=16384,t=2,p=1$
+     */
+    public static String argon2Prefix(int memory, int iterations, int parallelism) {
+        return "$argon2id$v=19$m=" + memory + ",t=" + iterations + ",p=" + parallelism + "$";
+    }
+
+    /**
+     * Début d'un hash SCrypt au format Spring Security : $<params en hexa>$
+     */
+    public static String scryptPrefix(int cpuCost, int memoryCost, int parallelization) {
+        long params = ((long) (Math.log(cpuCost) / Math.log(2)) << 16L) | (long) memoryCost << 8 | parallelization;
+        return "$" + Long.toString(params, 16) + "$";
+    }
+}
@@ -0,0 +1,85 @@
+package com.microcommerce.userservice.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Authentification légère posée par JwtAuthenticationFilter
+ *
+ * Porte juste ce qu'il y a dans le token (username, userId, rôle) :
+ * pas de credentials, pas de WebAuthenticationDetails, autorités partagées par rôle.
+ * Le principal reste le username (email) comme avant.
+ */
+public class JwtAuthentication implements Authentication {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private final String userId;
+    private final String role;
+    private boolean authenticated = true;
+
+    public JwtAuthentication(VerifiedToken token) {
+        this.username = token.getUsername();
+        this.userId = token.getUserId();
+        this.role = token.getRole();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return RoleAuthorities.of(role); // Liste partagée par rôle, pas de champ à sérialiser
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null; // Le token a déjà été vérifié, on ne le garde pas
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return username;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    @Override
+    public void setAuthenticated(boolean isAuthenticated) throws IllegalArgumentException {
+        if (isAuthenticated) {
+            throw new IllegalArgumentException("Impossible de marquer un JwtAuthentication comme authentifié après coup");
+        }
+        this.authenticated = false;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtAuthentication{" +
+                "username='" + username + '\'' +
+                ", userId='" + userId + '\'' +
+                ", role='" + role + '\'' +
+                ", authenticated=" + authenticated +
+                '}';
+    }
+}
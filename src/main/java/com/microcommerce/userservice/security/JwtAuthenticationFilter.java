@@ -5,23 +5,24 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
 
 /**
  * Filtre JWT pour l'authentification
  * Intercepte toutes les requêtes et valide les tokens JWT
+ * 
+ * Chemin rapide : token vérifié en cache, autorités pré-construites par rôle
+ * et JwtAuthentication léger (pas de WebAuthenticationDetails par requête)
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -31,47 +32,40 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authorizationHeader = request.getHeader("Authorization");
         
-        String username = null;
-        String jwt = null;
+        VerifiedToken verifiedToken = null;
         
         // Vérifier si le header Authorization contient un token Bearer
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7); // Enlever "Bearer "
+        if (authorizationHeader != null && authorizationHeader.startsWith(BEARER_PREFIX)) {
+            String jwt = authorizationHeader.substring(BEARER_PREFIX.length()); // Enlever "Bearer "
             try {
-                username = jwtUtil.extractUsername(jwt);
+                // Une seule vérification (en cache) pour toutes les infos du token
+                verifiedToken = jwtUtil.verify(jwt);
             } catch (Exception e) {
-                logger.error("Erreur lors de l'extraction du username du token JWT", e);
+                // Pas de stack trace ici : un flood de tokens invalides ne doit pas noyer les logs
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Token JWT rejeté: " + e.getMessage());
+                }
             }
         }
         
-        // Si on a un username et qu'aucune authentification n'est déjà en place
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // Si le token est valide, a un sujet (sub) et qu'aucune authentification n'est déjà en place
+        if (verifiedToken != null && verifiedToken.getUsername() != null && !verifiedToken.isExpired()
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            
+            // Créer l'authentification (autorités partagées, pas de détails de requête)
+            JwtAuthentication authentication = new JwtAuthentication(verifiedToken);
             
-            // Valider le token
-            if (jwtUtil.validateToken(jwt)) {
-                // Extraire les informations du token
-                String userId = jwtUtil.extractUserId(jwt);
-                String role = jwtUtil.extractRole(jwt);
-                
-                // Créer l'authentification
-                UsernamePasswordAuthenticationToken authToken = 
-                    new UsernamePasswordAuthenticationToken(
-                        username, 
-                        null, 
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
-                    );
-                
-                // Ajouter les détails de la requête
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                
-                // Définir l'authentification dans le contexte de sécurité
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-                
-                // Ajouter les informations utilisateur dans les headers pour les autres services
-                response.setHeader("X-User-Id", userId);
-                response.setHeader("X-User-Role", role);
-                response.setHeader("X-Username", username);
+            // Définir l'authentification dans le contexte de sécurité
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            
+            // Ajouter les informations utilisateur dans les headers pour les autres services
+            if (verifiedToken.getUserId() != null) {
+                response.setHeader("X-User-Id", verifiedToken.getUserId());
+            }
+            if (verifiedToken.getRole() != null) {
+                response.setHeader("X-User-Role", verifiedToken.getRole());
             }
+            response.setHeader("X-Username", verifiedToken.getUsername());
         }
         
         filterChain.doFilter(request, response);
@@ -0,0 +1,104 @@
+package com.microcommerce.userservice.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Petit trousseau de clés HMAC pour les tokens JWT
+ *
+ * Une clé active (celle qui signe, identifiée par son kid) + les anciennes clés
+ * encore acceptées pour vérifier les tokens en circulation après une rotation.
+ * Le contenu vient de la configuration partagée (cf. JwtUtil) : toutes les instances
+ * ont le même trousseau. Les clés sont construites une seule fois, pas à chaque requête.
+ *
+ * Lecture sans verrou (snapshot immuable), remplacé en bloc au rechargement.
+ */
+class JwtKeyRing {
+
+    private final String legacyKid; // Clé utilisée pour les tokens émis sans header kid
+
+    private volatile Snapshot snapshot;
+
+    JwtKeyRing(String activeKid, Map<String, String> secrets, String legacyKid) {
+        this.legacyKid = legacyKid;
+        this.snapshot = toSnapshot(activeKid, secrets);
+    }
+
+    /**
+     * Signe avec la clé active en posant son kid dans le header
+     * (kid et clé lus dans le même snapshot, même pendant un rechargement)
+     */
+    JwtBuilder sign(JwtBuilder builder) {
+        Snapshot current = snapshot;
+        return builder
+                .setHeaderParam(JwsHeader.KEY_ID, current.activeKid)
+                .signWith(current.activeKey, SignatureAlgorithm.HS256);
+    }
+
+    /**
+     * Identifiant (kid) de la clé de signature actuelle
+     */
+    String activeKid() {
+        return snapshot.activeKid;
+    }
+
+    /**
+     * Retrouve la clé de vérification d'un token (null si le kid est inconnu)
+     */
+    SecretKey resolve(String kid) {
+        return snapshot.keys.get(kid != null ? kid : legacyKid);
+    }
+
+    /**
+     * Liste des kids connus, dans l'ordre de la configuration
+     */
+    List<String> kids() {
+        return new ArrayList<>(snapshot.keys.keySet());
+    }
+
+    /**
+     * Remplace tout le trousseau, retourne true si une clé a disparu
+     * Rien n'est changé si la nouvelle configuration est invalide
+     */
+    boolean replace(String activeKid, Map<String, String> secrets) {
+        Snapshot next = toSnapshot(activeKid, secrets);
+        boolean removed = !next.keys.keySet().containsAll(snapshot.keys.keySet());
+        snapshot = next;
+        return removed;
+    }
+
+    private static Snapshot toSnapshot(String activeKid, Map<String, String> secrets) {
+        if (activeKid == null || !secrets.containsKey(activeKid)) {
+            throw new IllegalArgumentException("Clé JWT active absente du trousseau: " + activeKid);
+        }
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        // Lève WeakKeyException si un secret est trop court
+        secrets.forEach((kid, secret) -> keys.put(kid, Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8))));
+        return new Snapshot(activeKid, keys);
+    }
+
+    /**
+     * État immuable du trousseau
+     */
+    private static final class Snapshot {
+        private final String activeKid;
+        private final SecretKey activeKey;
+        private final Map<String, SecretKey> keys;
+
+        private Snapshot(String activeKid, Map<String, SecretKey> keys) {
+            this.activeKid = activeKid;
+            this.activeKey = keys.get(activeKid);
+            this.keys = Collections.unmodifiableMap(keys);
+        }
+    }
+}
@@ -1,72 +1,297 @@
 package com.microcommerce.userservice.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
  * Utilitaire pour la gestion des tokens JWT
  * Génère, valide et extrait les informations des tokens JWT
+ * 
+ * Les tokens vérifiés sont gardés en cache (clé = token brut) jusqu'à leur exp,
+ * comme ça la signature HMAC n'est vérifiée qu'une fois par token et par instance
+ * 
+ * Clés et parser sont construits une seule fois au démarrage (thread-safe).
+ * Les tokens portent un header kid, le trousseau vient de la configuration partagée
+ * par toutes les instances (le premier trouvé) :
+ * - jwt.keyring.file : fichier de propriétés (secret monté depuis le coffre), relu à chaud
+ *   toutes les jwt.keyring.refresh-ms quand il change
+ * - jwt.keyring.keys.<kid> + jwt.keyring.active-kid : clés dans la configuration (relues au redémarrage)
+ * - sinon une seule clé : jwt.secret avec le kid jwt.key-id
+ * Rotation : ajouter la nouvelle clé et l'activer, puis retirer l'ancienne une fois
+ * les tokens qu'elle a signés expirés.
  */
 @Component
 public class JwtUtil {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+
+    private static final String ACTIVE_KID_PROPERTY = "active-kid";
+    private static final String KEY_PROPERTY_PREFIX = "keys.";
+
     @Value("${jwt.secret:mySecretKey123456789012345678901234567890}")
     private String secret;
 
     @Value("${jwt.expiration:86400000}") // 24 heures par défaut
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.key-id:v1}") // kid de la clé unique (aussi utilisée pour les tokens sans kid)
+    private String keyId;
+
+    @Value("${jwt.keyring.active-kid:}")
+    private String activeKeyId;
+
+    @Value("${jwt.keyring.file:}")
+    private String keyringFile;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private Environment environment;
+
+    // Tokens déjà vérifiés, chaque entrée expire pile à l'exp du token
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    private JwtKeyRing keyRing;
+    private volatile long keyringFileModifiedAt;
+
+    // Parser construit une fois, la clé est choisie d'après le kid du token
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        KeyringConfig config = loadKeyringConfig();
+        keyRing = new JwtKeyRing(config.activeKid(), config.secrets(), keyId);
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 déclare un JwsHeader brut : JwsHeader<?> ne serait pas un override
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        SecretKey key = keyRing.resolve(header.getKeyId());
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Clé JWT inconnue: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        return nanosUntilExpiration(verified);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified,
+                                                  long currentTime, long currentDuration) {
+                        return nanosUntilExpiration(verified);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration; // Une lecture ne prolonge jamais un token
+                    }
+                })
+                .recordStats()
+                .build();
+
+        // Expose cache.gets (hit/miss), cache.evictions, cache.size... dans /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+    }
+
+    private static long nanosUntilExpiration(VerifiedToken verified) {
+        long remainingMillis = verified.getExpiresAtMillis() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, remainingMillis));
+    }
+
+    /**
+     * Relit le fichier du trousseau s'il a changé (nouvelle clé, clé active, retrait)
+     * Une configuration invalide est ignorée : le trousseau actuel reste en place
+     */
+    @Scheduled(fixedDelayString = "${jwt.keyring.refresh-ms:30000}")
+    public void reloadKeyring() {
+        if (!hasText(keyringFile)) {
+            return;
+        }
+        try {
+            long modifiedAt = Files.getLastModifiedTime(Path.of(keyringFile)).toMillis();
+            if (modifiedAt == keyringFileModifiedAt) {
+                return;
+            }
+            KeyringConfig config = readKeyringFile();
+            if (keyRing.replace(config.activeKid(), config.secrets())) {
+                // Des tokens signés avec une clé retirée peuvent encore être en cache
+                verifiedTokens.invalidateAll();
+            }
+            keyringFileModifiedAt = modifiedAt;
+            logger.info("Trousseau JWT rechargé: clé active {}, clés {}", keyRing.activeKid(), keyRing.kids());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Trousseau JWT {} non rechargé, le précédent est gardé: {}", keyringFile, e.getMessage());
+        }
+    }
+
+    /**
+     * kid de la clé qui signe actuellement les tokens
+     */
+    public String getActiveKeyId() {
+        return keyRing.activeKid();
+    }
+
+    /**
+     * kids encore acceptés pour la vérification
+     */
+    public List<String> getKnownKeyIds() {
+        return keyRing.kids();
+    }
+
+    /**
+     * D'où vient le trousseau : file, config ou secret
+     */
+    public String getKeyringSource() {
+        if (hasText(keyringFile)) {
+            return "file";
+        }
+        return configuredKeys().isEmpty() ? "secret" : "config";
+    }
+
+    private KeyringConfig loadKeyringConfig() {
+        if (hasText(keyringFile)) {
+            try {
+                keyringFileModifiedAt = Files.getLastModifiedTime(Path.of(keyringFile)).toMillis();
+                return readKeyringFile();
+            } catch (IOException e) {
+                throw new IllegalStateException("Trousseau JWT illisible: " + keyringFile, e);
+            }
+        }
+        Map<String, String> keys = configuredKeys();
+        if (keys.isEmpty()) {
+            return new KeyringConfig(keyId, Map.of(keyId, secret));
+        }
+        return new KeyringConfig(hasText(activeKeyId) ? activeKeyId : keyId, keys);
+    }
+
+    private Map<String, String> configuredKeys() {
+        if (environment == null) {
+            return Map.of();
+        }
+        return Binder.get(environment)
+                .bind("jwt.keyring.keys", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+    }
+
+    /**
+     * Fichier au format properties :
+     * active-kid=v2
+     * keys.v1=ancien-secret
+     * keys.v2=nouveau-secret
+     */
+    private KeyringConfig readKeyringFile() throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Path.of(keyringFile), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<String, String> secrets = new LinkedHashMap<>();
+        for (String name : new TreeSet<>(properties.stringPropertyNames())) {
+            if (name.startsWith(KEY_PROPERTY_PREFIX)) {
+                secrets.put(name.substring(KEY_PROPERTY_PREFIX.length()), properties.getProperty(name).trim());
+            }
+        }
+        return new KeyringConfig(properties.getProperty(ACTIVE_KID_PROPERTY, "").trim(), secrets);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private record KeyringConfig(String activeKid, Map<String, String> secrets) {
+    }
+
+    /**
+     * Vérifie le token (signature + expiration) et renvoie sa vue immuable
+     * Passe par le cache : seul le premier appel pour un token paie la vérification
+     * 
+     * @throws JwtException si le token est invalide ou expiré
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Token JWT vide");
+        }
+        return verifiedTokens.get(token, t -> VerifiedToken.from(extractAllClaims(t)));
     }
 
     /**
      * Extrait le nom d'utilisateur du token
      */
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return extractClaim(token, VerifiedToken::getUsername);
     }
 
     /**
      * Extrait la date d'expiration du token
      */
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return extractClaim(token, VerifiedToken::getExpiration);
     }
 
     /**
      * Extrait une claim spécifique du token
      */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public <T> T extractClaim(String token, Function<VerifiedToken, T> claimsResolver) {
+        return claimsResolver.apply(verify(token));
     }
 
     /**
-     * Extrait toutes les claims du token
+     * Extrait toutes les claims du token (vérification complète, sans cache)
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     /**
      * Vérifie si le token est expiré
      */
     private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return verify(token).isExpired();
     }
 
     /**
@@ -91,13 +316,13 @@ public class JwtUtil {
      * Crée le token JWT
      */
     private String createToken(Map<String, Object> claims, String subject) {
-        return Jwts.builder()
+        // JwtBuilder n'est pas thread-safe : un builder par token, mais la clé est déjà prête
+        JwtBuilder builder = Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+                .setExpiration(new Date(System.currentTimeMillis() + expiration));
+        return keyRing.sign(builder).compact();
     }
 
     /**
@@ -113,8 +338,7 @@ public class JwtUtil {
      */
     public Boolean validateToken(String token) {
         try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
+            return !verify(token).isExpired();
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
@@ -124,13 +348,13 @@ public class JwtUtil {
      * Extrait l'ID utilisateur du token
      */
     public String extractUserId(String token) {
-        return extractClaim(token, claims -> claims.get("userId", String.class));
+        return extractClaim(token, VerifiedToken::getUserId);
     }
 
     /**
      * Extrait le rôle du token
      */
     public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+        return extractClaim(token, VerifiedToken::getRole);
     }
 }
\ No newline at end of file
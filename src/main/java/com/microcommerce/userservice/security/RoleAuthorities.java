@@ -0,0 +1,36 @@
+package com.microcommerce.userservice.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Autorités Spring Security pré-construites, une liste par rôle
+ *
+ * Il n'y a qu'une poignée de rôles (USER, ADMIN...) : inutile de recréer
+ * "ROLE_" + role et une SimpleGrantedAuthority à chaque requête
+ */
+public final class RoleAuthorities {
+
+    private static final ConcurrentHashMap<String, List<GrantedAuthority>> AUTHORITIES = new ConcurrentHashMap<>();
+
+    private RoleAuthorities() {}
+
+    /**
+     * Liste immuable contenant ROLE_{role} (vide si pas de rôle)
+     */
+    public static List<GrantedAuthority> of(String role) {
+        if (role == null) {
+            return Collections.emptyList();
+        }
+        List<GrantedAuthority> authorities = AUTHORITIES.get(role);
+        if (authorities == null) {
+            authorities = AUTHORITIES.computeIfAbsent(role,
+                r -> Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + r)));
+        }
+        return authorities;
+    }
+}
@@ -1,16 +1,22 @@
 package com.microcommerce.userservice.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertyResolver;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.security.crypto.scrypt.SCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -18,7 +24,9 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration de sécurité Spring Security
@@ -35,6 +43,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
 
+    @Autowired
+    private Environment environment; // password-encoding.*, cf. passwordEncoders
+
     /**
      * Configuration de la chaîne de filtres de sécurité
      */
@@ -44,6 +55,9 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
+                // Fin d'une réponse async (Mono/Flux, export NDJSON) : la requête a déjà été autorisée
+                // au premier passage, et le filtre JWT ne repasse pas sur ce dispatch
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Endpoints publics
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/users/register").permitAll()
@@ -78,11 +92,92 @@ public class SecurityConfig {
     }
 
     /**
-     * Encodeur de mots de passe BCrypt
+     * Encodeur de mots de passe multi-algos
+     * 
+     * Les nouveaux hashs utilisent l'algo configuré et stockent son id ({bcrypt}...),
+     * les anciens hashs BCrypt sans préfixe restent vérifiables.
+     * Au login, un hash dont l'algo ou le coût ne correspond plus est refait (cf. AuthService)
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+        return passwordEncoder(environment);
+    }
+
+    /**
+     * Construit l'encodeur depuis les propriétés password-encoding.*
+     * (statique : PasswordEncoderBenchmark mesure exactement les mêmes encodeurs)
+     */
+    static PasswordEncoder passwordEncoder(PropertyResolver properties) {
+        // Algo cible pour les nouveaux hashs : bcrypt, argon2, scrypt ou pbkdf2
+        String algorithm = properties.getProperty("password-encoding.algorithm", "bcrypt");
+        Map<String, PasswordEncoder> encoders = passwordEncoders(properties);
+
+        String expectedHashPrefix = switch (algorithm) {
+            case "bcrypt" -> CostAwarePasswordEncoder.bcryptPrefix(bcryptStrength(properties));
+            case "argon2" -> CostAwarePasswordEncoder.argon2Prefix(argon2Memory(properties),
+                argon2Iterations(properties), argon2Parallelism(properties));
+            case "scrypt" -> CostAwarePasswordEncoder.scryptPrefix(scryptCpuCost(properties),
+                scryptMemoryCost(properties), scryptParallelization(properties));
+            case "pbkdf2" -> null; // Les itérations ne sont pas dans le hash
+            default -> throw new IllegalStateException("Algo de hachage inconnu: " + algorithm);
+        };
+
+        // Les hashs sans préfixe {id} datent d'avant : ce sont des BCrypt
+        return new CostAwarePasswordEncoder(algorithm, encoders, encoders.get("bcrypt"), expectedHashPrefix);
+    }
+
+    /**
+     * Un encodeur par algo supporté, indexés par leur id ({bcrypt}, {argon2}...)
+     */
+    static Map<String, PasswordEncoder> passwordEncoders(PropertyResolver properties) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(bcryptStrength(properties)));
+        encoders.put("argon2", new Argon2PasswordEncoder(
+            intProperty(properties, "argon2.salt-length", 16),
+            intProperty(properties, "argon2.hash-length", 32),
+            argon2Parallelism(properties), argon2Memory(properties), argon2Iterations(properties)));
+        encoders.put("scrypt", new SCryptPasswordEncoder(
+            scryptCpuCost(properties), scryptMemoryCost(properties), scryptParallelization(properties),
+            intProperty(properties, "scrypt.key-length", 32),
+            intProperty(properties, "scrypt.salt-length", 16)));
+        encoders.put("pbkdf2", new Pbkdf2PasswordEncoder("",
+            intProperty(properties, "pbkdf2.salt-length", 16),
+            intProperty(properties, "pbkdf2.iterations", 310000),
+            Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+        return encoders;
+    }
+
+    // Paramètres qui servent aussi au préfixe attendu des hashs : mêmes défauts partout
+    private static int bcryptStrength(PropertyResolver properties) {
+        return intProperty(properties, "bcrypt.strength", 12);
+    }
+
+    private static int argon2Memory(PropertyResolver properties) {
+        return intProperty(properties, "argon2.memory", 16384); // En Ko
+    }
+
+    private static int argon2Iterations(PropertyResolver properties) {
+        return intProperty(properties, "argon2.iterations", 2);
+    }
+
+    private static int argon2Parallelism(PropertyResolver properties) {
+        return intProperty(properties, "argon2.parallelism", 1);
+    }
+
+    private static int scryptCpuCost(PropertyResolver properties) {
+        return intProperty(properties, "scrypt.cpu-cost", 65536);
+    }
+
+    private static int scryptMemoryCost(PropertyResolver properties) {
+        return intProperty(properties, "scrypt.memory-cost", 8);
+    }
+
+    private static int scryptParallelization(PropertyResolver properties) {
+        return intProperty(properties, "scrypt.parallelization", 1);
+    }
+
+    private static int intProperty(PropertyResolver properties, String name, int defaultValue) {
+        return properties.getProperty("password-encoding." + name, Integer.class, defaultValue);
     }
 
     /**
@@ -0,0 +1,91 @@
+package com.microcommerce.userservice.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Vue immuable d'un token JWT déjà vérifié (signature + expiration)
+ *
+ * C'est ce qu'on garde en cache dans JwtUtil : une fois la signature vérifiée,
+ * on lit les claims ici au lieu de re-parser le token pour chaque info
+ */
+public final class VerifiedToken {
+
+    private final String username;
+    private final String userId;
+    private final String role;
+    private final long issuedAtMillis;
+    private final long expiresAtMillis;
+    private final Map<String, Object> claims;
+
+    private VerifiedToken(Claims claims) {
+        this.username = claims.getSubject();
+        this.userId = claims.get("userId", String.class);
+        this.role = claims.get("role", String.class);
+        this.issuedAtMillis = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+        this.expiresAtMillis = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        // Copie défensive : les Claims de jjwt sont une Map modifiable
+        this.claims = Collections.unmodifiableMap(new HashMap<>(claims));
+    }
+
+    /**
+     * Construit la vue à partir des claims d'un token dont la signature a été vérifiée
+     */
+    static VerifiedToken from(Claims claims) {
+        return new VerifiedToken(claims);
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Date getIssuedAt() {
+        return new Date(issuedAtMillis);
+    }
+
+    public Date getExpiration() {
+        return new Date(expiresAtMillis);
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /**
+     * Lit une claim quelconque (null si absente ou d'un autre type)
+     */
+    public <T> T getClaim(String name, Class<T> type) {
+        Object value = claims.get(name);
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    public boolean isExpired() {
+        return expiresAtMillis <= System.currentTimeMillis();
+    }
+
+    @Override
+    public String toString() {
+        return "VerifiedToken{" +
+                "username='" + username + '\'' +
+                ", userId='" + userId + '\'' +
+                ", role='" + role + '\'' +
+                ", expiresAt=" + expiresAtMillis +
+                '}';
+    }
+}
@@ -5,8 +5,9 @@ import com.microcommerce.userservice.dto.LoginResponse;
 import com.microcommerce.userservice.model.User;
 import com.microcommerce.userservice.repository.UserRepository;
 import com.microcommerce.userservice.security.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -18,11 +19,13 @@ import java.util.Optional;
 @Service
 public class AuthService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
     private JwtUtil jwtUtil;
@@ -40,11 +43,17 @@ public class AuthService {
         
         User user = userOptional.get();
         
-        // Vérifier le mot de passe
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+        // Vérifier le mot de passe (sur le pool de hachage, pas sur le thread Tomcat)
+        if (!passwordHashingService.matches(PasswordHashingService.Operation.LOGIN,
+                loginRequest.getPassword(), user.getPassword())) {
             throw new RuntimeException("Mot de passe incorrect");
         }
         
+        // Re-hacher si l'algo ou le coût stocké n'est plus la cible configurée
+        if (passwordHashingService.needsUpgrade(user.getPassword())) {
+            upgradePassword(user, loginRequest.getPassword());
+        }
+        
         // Générer le token JWT
         String token = jwtUtil.generateToken(user.getEmail(), user.getId(), user.getRole().toString());
         
@@ -58,6 +67,22 @@ public class AuthService {
                 .build();
     }
 
+    /**
+     * Refait le hash du mot de passe avec l'algo/coût cible
+     * Best effort : si le pool est saturé, on réessaiera au prochain login
+     */
+    private void upgradePassword(User user, String rawPassword) {
+        try {
+            String newHash = passwordHashingService.encode(PasswordHashingService.Operation.LOGIN, rawPassword);
+            long updated = userRepository.updatePasswordIfUnchanged(user.getId(), user.getPassword(), newHash);
+            if (updated > 0) {
+                logger.info("Hash du mot de passe mis à niveau pour l'utilisateur: {}", user.getId());
+            }
+        } catch (PasswordHashingRejectedException e) {
+            logger.debug("Mise à niveau du hash reportée pour l'utilisateur {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
     /**
      * Valide un token JWT
      */
@@ -0,0 +1,81 @@
+package com.microcommerce.userservice.service;
+
+import com.microcommerce.userservice.event.ProductEvent;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Snapshot immuable d'un produit tel qu'on le garde dans ProductCache
+ *
+ * version = horodatage de l'événement qui l'a produit : un événement plus vieux
+ * que la version en cache est ignoré. Un produit supprimé reste un moment
+ * en "tombstone" pour qu'un UPDATED en retard ne le ressuscite pas.
+ */
+public final class CachedProduct {
+
+    private final String productId;
+    private final String name;
+    private final BigDecimal price;
+    private final Integer stock;
+    private final String category;
+    private final Instant version;
+    private final boolean deleted;
+
+    public CachedProduct(String productId, String name, BigDecimal price, Integer stock,
+                         String category, Instant version, boolean deleted) {
+        this.productId = productId;
+        this.name = name;
+        this.price = price;
+        this.stock = stock;
+        this.category = category;
+        this.version = version;
+        this.deleted = deleted;
+    }
+
+    public static CachedProduct from(ProductEvent event, Instant version) {
+        boolean deleted = event.getEventType() == ProductEvent.EventType.DELETED;
+        if (deleted) {
+            return new CachedProduct(event.getProductId(), null, null, null, null, version, true);
+        }
+        return new CachedProduct(event.getProductId(), event.getName(), event.getPrice(),
+            event.getStock(), event.getCategory(), version, false);
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Instant getVersion() {
+        return version;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedProduct{" +
+                "productId='" + productId + '\'' +
+                ", version=" + version +
+                ", deleted=" + deleted +
+                '}';
+    }
+}
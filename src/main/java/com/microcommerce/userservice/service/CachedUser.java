@@ -0,0 +1,59 @@
+package com.microcommerce.userservice.service;
+
+import com.microcommerce.userservice.model.User;
+import com.microcommerce.userservice.repository.UserSummary;
+
+/**
+ * Snapshot immuable d'un utilisateur tel qu'on le garde dans UserCache
+ *
+ * Juste les infos publiques (pas de mot de passe), les DTOs renvoyés
+ * par l'API sont recréés à partir de ça à chaque appel
+ */
+public final class CachedUser {
+
+    private final String id;
+    private final String name;
+    private final String email;
+    private final String role;
+
+    public CachedUser(String id, String name, String email, String role) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.role = role;
+    }
+
+    public static CachedUser from(User user) {
+        return new CachedUser(user.getId(), user.getName(), user.getEmail(), user.getRole());
+    }
+
+    public static CachedUser from(UserSummary user) {
+        return new CachedUser(user.getId(), user.getName(), user.getEmail(), user.getRole());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedUser{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", email='" + email + '\'' +
+                ", role='" + role + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,144 @@
+package com.microcommerce.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envoi asynchrone vers RabbitMQ avec confirms corrélés
+ *
+ * Chaque message part avec un CorrelationData et on récupère un futur complété
+ * par le confirm du broker : l'appelant peut envoyer des milliers de messages
+ * d'affilée et attendre les confirms à la fin, au lieu d'un aller-retour par message.
+ *
+ * Le nombre de messages envoyés mais pas encore confirmés est borné
+ * (rabbitmq-publisher.max-in-flight) pour ne pas noyer le broker ni la mémoire.
+ */
+@Component
+public class ConfirmingPublisher {
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rabbitmq-publisher.max-in-flight:5000}")
+    private int maxInFlight;
+
+    @Value("${rabbitmq-publisher.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    private Semaphore window;
+
+    private Timer confirmLatency;
+    private Counter returnedMessages;
+    private Map<String, Counter> failures;
+
+    @PostConstruct
+    void init() {
+        window = new Semaphore(maxInFlight);
+
+        confirmLatency = Timer.builder("rabbitmq.publish.confirm")
+            .description("Temps entre l'envoi d'un message et le confirm du broker")
+            .register(meterRegistry);
+        returnedMessages = Counter.builder("rabbitmq.publish.returned")
+            .description("Messages confirmés mais routés vers aucune queue")
+            .register(meterRegistry);
+        failures = Map.of(
+            "nack", failureCounter("nack"),
+            "timeout", failureCounter("timeout"),
+            "send", failureCounter("send"),
+            "window", failureCounter("window")
+        );
+        Gauge.builder("rabbitmq.publish.in-flight", window, w -> maxInFlight - w.availablePermits())
+            .description("Messages envoyés en attente de confirm")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Envoie un message, le futur est complété au confirm (en erreur sur nack ou timeout)
+     * Bloque au plus confirm-timeout-ms si la fenêtre de messages en cours est pleine
+     */
+    public CompletableFuture<Void> publish(String exchange, String routingKey, Object payload) {
+        return publish(exchange, routingKey, payload, message -> message);
+    }
+
+    /**
+     * Pareil, avec un MessagePostProcessor pour ajouter des headers
+     */
+    public CompletableFuture<Void> publish(String exchange, String routingKey, Object payload,
+                                           MessagePostProcessor postProcessor) {
+        try {
+            if (!window.tryAcquire(confirmTimeoutMs, TimeUnit.MILLISECONDS)) {
+                failures.get("window").increment();
+                return CompletableFuture.failedFuture(
+                    new AmqpException("Trop de messages en attente de confirm (" + maxInFlight + ")"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new AmqpException("Envoi interrompu"));
+        }
+
+        long sentAt = System.nanoTime();
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        try {
+            rabbitTemplate.convertAndSend(exchange, routingKey, payload, postProcessor, correlation);
+        } catch (AmqpException e) {
+            window.release();
+            failures.get("send").increment();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return correlation.getFuture()
+            .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+            .handle((confirm, error) -> {
+                window.release();
+                confirmLatency.record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS);
+                if (error != null) {
+                    failures.get("timeout").increment();
+                    throw new CompletionException(new AmqpException("Pas de confirm du broker", error));
+                }
+                if (!confirm.isAck()) {
+                    failures.get("nack").increment();
+                    throw new CompletionException(new AmqpException("Message refusé par le broker: " + confirm.getReason()));
+                }
+                if (correlation.getReturned() != null) {
+                    // Accepté par le broker mais aucune queue liée : pas une erreur d'envoi
+                    returnedMessages.increment();
+                }
+                return null;
+            });
+    }
+
+    /**
+     * Durée max entre l'appel à publish et la complétion de son futur :
+     * attente d'une place dans la fenêtre, puis attente du confirm (chacune bornée par confirm-timeout-ms)
+     */
+    public long maxPublishWaitMs() {
+        return 2 * confirmTimeoutMs;
+    }
+
+    private Counter failureCounter(String reason) {
+        return Counter.builder("rabbitmq.publish.failures")
+            .description("Messages non confirmés par le broker")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,154 @@
+package com.microcommerce.userservice.service;
+
+import com.microcommerce.userservice.config.RabbitMQConfig;
+import com.microcommerce.userservice.dto.ParkedMessage;
+import com.microcommerce.userservice.listener.FailedMessageRouter;
+import com.rabbitmq.client.GetResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inspection et rejeu des messages du parking lot
+ *
+ * Les queues sont désignées par leur nom court : "order" ou "product"
+ */
+@Service
+public class DeadLetterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterService.class);
+
+    // Headers d'échec retirés au rejeu : le message repart comme neuf
+    private static final List<String> FAILURE_HEADERS = List.of(
+        FailedMessageRouter.RETRY_COUNT_HEADER,
+        FailedMessageRouter.ORIGINAL_QUEUE_HEADER,
+        FailedMessageRouter.EXCEPTION_TYPE_HEADER,
+        FailedMessageRouter.EXCEPTION_MESSAGE_HEADER,
+        FailedMessageRouter.PARKED_AT_HEADER,
+        "x-death", "x-first-death-exchange", "x-first-death-queue", "x-first-death-reason",
+        "x-last-death-exchange", "x-last-death-queue", "x-last-death-reason"
+    );
+
+    private static final Map<String, String> QUEUES_BY_NAME = Map.of(
+        "order", RabbitMQConfig.USER_SERVICE_ORDER_QUEUE,
+        "product", RabbitMQConfig.USER_SERVICE_PRODUCT_QUEUE
+    );
+
+    private final MessagePropertiesConverter messagePropertiesConverter = new DefaultMessagePropertiesConverter();
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private AmqpAdmin amqpAdmin;
+
+    @Autowired
+    private ConfirmingPublisher confirmingPublisher;
+
+    /**
+     * Nombre de messages en attente dans chaque parking lot
+     */
+    public Map<String, Long> countParked() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        QUEUES_BY_NAME.keySet().stream().sorted().forEach(name -> {
+            QueueInformation info = amqpAdmin.getQueueInfo(RabbitMQConfig.parkingLotQueue(QUEUES_BY_NAME.get(name)));
+            counts.put(name, info != null ? info.getMessageCount() : 0L);
+        });
+        return counts;
+    }
+
+    /**
+     * Lit les premiers messages du parking lot sans les retirer
+     * (ils sont remis dans la queue juste après, leur ordre peut changer)
+     */
+    public List<ParkedMessage> peek(String name, int limit) {
+        String parkingLot = RabbitMQConfig.parkingLotQueue(resolveQueue(name));
+        return rabbitTemplate.execute(channel -> {
+            List<ParkedMessage> messages = new ArrayList<>();
+            long lastTag = -1;
+            GetResponse response;
+            while (messages.size() < limit && (response = channel.basicGet(parkingLot, false)) != null) {
+                lastTag = response.getEnvelope().getDeliveryTag();
+                messages.add(toParkedMessage(response));
+            }
+            if (lastTag >= 0) {
+                channel.basicNack(lastTag, true, true);
+            }
+            return messages;
+        });
+    }
+
+    /**
+     * Renvoie jusqu'à limit messages du parking lot dans leur queue d'origine
+     * Chaque message n'est retiré du parking lot qu'une fois le renvoi confirmé par le broker
+     */
+    public int replay(String name, int limit) {
+        String queue = resolveQueue(name);
+        String parkingLot = RabbitMQConfig.parkingLotQueue(queue);
+
+        Integer replayed = rabbitTemplate.execute(channel -> {
+            int count = 0;
+            GetResponse response;
+            while (count < limit && (response = channel.basicGet(parkingLot, false)) != null) {
+                long deliveryTag = response.getEnvelope().getDeliveryTag();
+                try {
+                    // Le renvoi passe par le publisher confirmé (autre channel), l'ack seulement après le confirm
+                    confirmingPublisher.publish("", queue, toReplayMessage(response)).join();
+                } catch (RuntimeException e) {
+                    channel.basicNack(deliveryTag, false, true);
+                    throw new RuntimeException("Rejeu interrompu après " + count + " messages: " + e.getMessage(), e);
+                }
+                channel.basicAck(deliveryTag, false);
+                count++;
+            }
+            return count;
+        });
+
+        logger.info("{} messages rejoués depuis {}", replayed, parkingLot);
+        return replayed != null ? replayed : 0;
+    }
+
+    private String resolveQueue(String name) {
+        String queue = QUEUES_BY_NAME.get(name);
+        if (queue == null) {
+            throw new RuntimeException("Queue inconnue: " + name + " (order ou product)");
+        }
+        return queue;
+    }
+
+    /**
+     * Message tel qu'il était avant l'échec : même corps et propriétés, sans les headers d'échec
+     */
+    private Message toReplayMessage(GetResponse response) {
+        MessageProperties properties = messagePropertiesConverter.toMessageProperties(
+            response.getProps(), response.getEnvelope(), StandardCharsets.UTF_8.name());
+        FAILURE_HEADERS.forEach(properties.getHeaders()::remove);
+        return new Message(response.getBody(), properties);
+    }
+
+    private ParkedMessage toParkedMessage(GetResponse response) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (response.getProps().getHeaders() != null) {
+            response.getProps().getHeaders().forEach((key, value) -> headers.put(key, String.valueOf(value)));
+        }
+        return new ParkedMessage(
+            response.getProps().getMessageId(),
+            headers,
+            new String(response.getBody(), StandardCharsets.UTF_8)
+        );
+    }
+}
@@ -0,0 +1,56 @@
+package com.microcommerce.userservice.service;
+
+import com.microcommerce.userservice.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Sans base (profil in-memory) : pas d'outbox, les événements partent tout de suite vers RabbitMQ
+ *
+ * Envoi par ConfirmingPublisher dans l'ordre de la liste, sans attendre les confirms :
+ * la requête ne dépend toujours pas de la latence du broker. Un événement refusé ou
+ * sans confirm est perdu (log + users.events.dropped), il n'y a rien de durable où le garder.
+ */
+@Component
+@Profile("in-memory")
+public class DirectOutboxWriter implements OutboxWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectOutboxWriter.class);
+
+    @Autowired
+    private ConfirmingPublisher confirmingPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter droppedEvents;
+
+    @PostConstruct
+    void init() {
+        droppedEvents = Counter.builder("users.events.dropped")
+            .description("Événements utilisateurs non confirmés par le broker (profil in-memory, pas d'outbox)")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void write(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            confirmingPublisher.publish(event.getExchange(), event.getRoutingKey(), event.getPayload())
+                .whenComplete((confirmed, error) -> {
+                    if (error != null) {
+                        droppedEvents.increment();
+                        logger.warn("Événement {} perdu pour l'utilisateur {}: {}", event.getRoutingKey(),
+                            event.getAggregateId(), error.getMessage());
+                    }
+                });
+        }
+    }
+}
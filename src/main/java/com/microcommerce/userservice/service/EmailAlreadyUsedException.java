@@ -0,0 +1,15 @@
+package com.microcommerce.userservice.service;
+
+/**
+ * Levée quand l'index unique sur l'email refuse une insertion ou une mise à jour
+ *
+ * Les contrôleurs la transforment en 409 Conflict
+ */
+public class EmailAlreadyUsedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public EmailAlreadyUsedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,27 @@
+package com.microcommerce.userservice.service;
+
+import com.microcommerce.userservice.model.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Outbox dans MongoDB (user_outbox), avec la modif de l'utilisateur (cf. UserWriteTransaction)
+ * OutboxRelay envoie ensuite les événements vers RabbitMQ en tâche de fond
+ */
+@Component
+@Profile("!in-memory")
+public class MongoOutboxWriter implements OutboxWriter {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void write(List<OutboxEvent> events) {
+        // Un seul insert pour tout le lot (import en masse)
+        mongoTemplate.insert(events, OutboxEvent.class);
+    }
+}
@@ -0,0 +1,275 @@
+package com.microcommerce.userservice.service;
+
+import com.microcommerce.userservice.dto.OrderSummaryResponse;
+import com.microcommerce.userservice.event.OrderEvent;
+import com.microcommerce.userservice.model.OrderSnapshot;
+import com.microcommerce.userservice.model.UserOrderSummary;
+import com.microcommerce.userservice.repository.OrderSummaryRepository;
+import com.microcommerce.userservice.repository.OrderSummaryRepository.OrderWrite;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Résumés de commandes par utilisateur, tenus à jour depuis les événements order.*
+ *
+ * Pour un lot d'événements :
+ * - on relit en une requête l'état connu des commandes concernées (OrderSummaryRepository)
+ * - on y applique les événements pas encore vus (identifiés par leur message-id)
+ * - on réécrit en bulk les commandes modifiées, chacune à condition que sa version
+ *   n'ait pas bougé : celles modifiées entre-temps par un autre consommateur sont
+ *   relues et on recommence pour elles
+ * - on recalcule (une agrégation côté Mongo) le résumé des utilisateurs concernés
+ *
+ * L'état d'une commande et ses événements appliqués sont dans le même document :
+ * un redelivery ne compte jamais deux fois, sans transaction. Le résumé étant
+ * recalculé (et non incrémenté), un crash entre les deux écritures est réparé
+ * par le redelivery du même lot.
+ */
+@Service
+public class OrderSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderSummaryService.class);
+
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+    private static final int MAX_EVENT_IDS_PER_ORDER = 50; // Une commande vit quelques événements, pas 50
+
+    private static final String ORDER_CREATED = "ORDER_CREATED";
+    private static final String ORDER_STATUS_UPDATED = "ORDER_STATUS_UPDATED";
+    private static final String ORDER_CANCELLED = "ORDER_CANCELLED";
+    private static final String ORDER_DELETED = "ORDER_DELETED";
+
+    private static final String CANCELLED = OrderSummaryRepository.CANCELLED;
+    private static final String UNKNOWN_STATUS = "UNKNOWN";
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter appliedEvents;
+    private Counter duplicateEvents;
+
+    @PostConstruct
+    void init() {
+        appliedEvents = eventCounter("applied");
+        duplicateEvents = eventCounter("duplicate");
+    }
+
+    /**
+     * Types d'événements qui modifient les résumés
+     */
+    public static boolean isSupported(String eventType) {
+        return ORDER_CREATED.equals(eventType) || ORDER_STATUS_UPDATED.equals(eventType)
+            || ORDER_CANCELLED.equals(eventType) || ORDER_DELETED.equals(eventType);
+    }
+
+    /**
+     * Identifiant d'un événement : son message-id AMQP, sinon les champs de l'événement
+     * (l'horodatage distingue deux passages successifs par le même statut)
+     */
+    public static String eventId(String messageId, OrderEvent event) {
+        if (messageId != null && !messageId.isEmpty()) {
+            return messageId;
+        }
+        return event.getOrderId() + ":" + event.getEventType() + ":" + event.getStatus() + ":" + event.getTimestamp();
+    }
+
+    /**
+     * Applique un lot d'événements indexés par eventId (dans l'ordre d'itération),
+     * retourne le nombre d'événements nouveaux
+     */
+    public int applyEvents(Map<String, OrderEvent> events) {
+        for (OrderEvent event : events.values()) {
+            if (event.getOrderId() == null || event.getUserId() == null || !isSupported(event.getEventType())) {
+                throw new RuntimeException("Événement commande invalide: " + event);
+            }
+        }
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> userIds = new HashSet<>();
+        int applied = applyToOrders(events, userIds);
+        refreshSummaries(userIds);
+
+        appliedEvents.increment(applied);
+        duplicateEvents.increment(events.size() - applied);
+        logger.debug("{} événements commandes appliqués aux résumés ({} utilisateurs)", applied, userIds.size());
+        return applied;
+    }
+
+    /**
+     * Résumé des commandes d'un utilisateur (vide s'il n'a jamais commandé)
+     */
+    public OrderSummaryResponse getSummary(String userId) {
+        UserOrderSummary summary = orderSummaryRepository.findSummary(userId).orElse(null);
+        if (summary == null) {
+            return new OrderSummaryResponse(userId, 0, BigDecimal.ZERO, null, Map.of());
+        }
+
+        // Les anciens résumés (incrémentés) gardaient les statuts tombés à 0
+        Map<String, Long> statusCounts = new TreeMap<>();
+        if (summary.getStatusCounts() != null) {
+            summary.getStatusCounts().forEach((status, count) -> {
+                if (count != null && count > 0) {
+                    statusCounts.put(status, count);
+                }
+            });
+        }
+        return new OrderSummaryResponse(
+            userId,
+            summary.getOrderCount(),
+            summary.getLifetimeSpend() != null ? summary.getLifetimeSpend() : BigDecimal.ZERO,
+            summary.getLastOrderAt(),
+            statusCounts
+        );
+    }
+
+    /**
+     * Applique les événements aux commandes, en recommençant pour celles qu'un autre
+     * consommateur a modifiées entre la lecture et l'écriture
+     */
+    private int applyToOrders(Map<String, OrderEvent> events, Set<String> userIds) {
+        Map<Long, Map<String, OrderEvent>> eventsByOrder = new LinkedHashMap<>();
+        events.forEach((eventId, event) ->
+            eventsByOrder.computeIfAbsent(event.getOrderId(), orderId -> new LinkedHashMap<>()).put(eventId, event));
+
+        Map<Long, Integer> appliedByOrder = new HashMap<>();
+        Collection<Long> pending = eventsByOrder.keySet();
+        for (int attempt = 1; ; attempt++) {
+            Map<Long, OrderSnapshot> known = orderSummaryRepository.findOrders(pending);
+
+            List<OrderWrite> writes = new ArrayList<>();
+            List<Long> written = new ArrayList<>();
+            for (Long orderId : pending) {
+                Map<String, OrderEvent> orderEvents = eventsByOrder.get(orderId);
+                OrderSnapshot order = known.get(orderId);
+                if (order == null) {
+                    order = new OrderSnapshot(orderId, String.valueOf(orderEvents.values().iterator().next().getUserId()));
+                }
+                userIds.add(order.getUserId());
+
+                long readVersion = order.getVersion();
+                int applied = 0;
+                for (Map.Entry<String, OrderEvent> entry : orderEvents.entrySet()) {
+                    if (apply(entry.getKey(), entry.getValue(), order)) {
+                        applied++;
+                    }
+                }
+                if (applied == 0) {
+                    continue; // Déjà appliqués : redelivery, ou écrits par la tentative précédente
+                }
+                appliedByOrder.put(orderId, applied);
+
+                order.setVersion(readVersion + 1);
+                writes.add(new OrderWrite(order, readVersion, !known.containsKey(orderId)));
+                written.add(orderId);
+            }
+
+            if (written.isEmpty() || orderSummaryRepository.writeOrders(writes)) {
+                break;
+            }
+            if (attempt == MAX_WRITE_ATTEMPTS) {
+                throw new RuntimeException("Commandes modifiées en continu par d'autres consommateurs: " + written);
+            }
+            logger.debug("Commandes modifiées pendant le lot, nouvelle tentative pour {}", written);
+            pending = written;
+        }
+        return appliedByOrder.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Applique un événement à l'état connu de la commande, retourne false s'il l'était déjà
+     */
+    private boolean apply(String eventId, OrderEvent event, OrderSnapshot order) {
+        if (order.getAppliedEventIds().contains(eventId)) {
+            return false;
+        }
+        recordEventId(order, eventId);
+        if (order.isDeleted()) {
+            return true; // Événement en retard sur une commande supprimée : rien à changer
+        }
+
+        if (ORDER_DELETED.equals(event.getEventType())) {
+            order.setDeleted(true);
+            return true;
+        }
+        if (order.getTotalAmount() == null) {
+            order.setTotalAmount(event.getTotalAmount());
+        }
+
+        String newStatus = ORDER_CANCELLED.equals(event.getEventType()) ? CANCELLED : statusKey(event.getStatus());
+        if (ORDER_CREATED.equals(event.getEventType())) {
+            // Une mise à jour de statut peut arriver avant la création (plusieurs consommateurs) :
+            // le statut déjà connu est alors plus récent que celui de la création
+            if (order.getStatus() == null) {
+                order.setStatus(newStatus);
+            }
+            order.setTotalAmount(event.getTotalAmount() != null ? event.getTotalAmount() : order.getTotalAmount());
+            order.setOrderedAt(toInstant(event.getTimestamp()));
+            return true;
+        }
+        order.setStatus(newStatus);
+        return true;
+    }
+
+    private static void recordEventId(OrderSnapshot order, String eventId) {
+        List<String> eventIds = order.getAppliedEventIds();
+        eventIds.add(eventId);
+        if (eventIds.size() > MAX_EVENT_IDS_PER_ORDER) {
+            eventIds.subList(0, eventIds.size() - MAX_EVENT_IDS_PER_ORDER).clear();
+        }
+    }
+
+    /**
+     * Recalcule le résumé des utilisateurs depuis leurs commandes, en un appel pour tout le lot
+     *
+     * Un résumé n'est remplacé que par un calcul fait sur des commandes plus récentes
+     * (sourceVersion plus grande) : le dernier consommateur à écrire une commande
+     * voit forcément toutes les écritures précédentes, c'est lui qui gagne.
+     */
+    private void refreshSummaries(Set<String> userIds) {
+        orderSummaryRepository.writeSummaries(orderSummaryRepository.computeSummaries(userIds));
+    }
+
+    // Le statut devient une clé de statusCounts (nom de champ Mongo) : pas de '.' ni de '$'
+    private static String statusKey(String status) {
+        if (status == null || status.isBlank()) {
+            return UNKNOWN_STATUS;
+        }
+        String key = status.trim().toUpperCase();
+        return key.matches("[A-Z0-9_]+") ? key : UNKNOWN_STATUS;
+    }
+
+    // Les timestamps des events sont des LocalDateTime : même fuseau que le producteur supposé
+    private static Instant toInstant(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.atZone(ZoneId.systemDefault()).toInstant() : Instant.now();
+    }
+
+    private Counter eventCounter(String outcome) {
+        return Counter.builder("users.order-summary.events")
+            .description("Événements commandes reçus pour les résumés")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
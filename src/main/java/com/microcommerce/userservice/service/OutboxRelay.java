@@ -0,0 +1,482 @@
+package com.microcommerce.userservice.service;
+
+import com.microcommerce.userservice.model.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Relais de l'outbox : envoie vers RabbitMQ les événements écrits par UserEventPublisher
+ *
+ * - lit les événements dus par lots (ordre de création)
+ * - les "loue" pour cette instance, pour que deux replicas n'envoient pas le même lot
+ *   (bail renouvelé à chaque vague, plus d'envoi quand il ne couvre plus l'attente des confirms)
+ * - publie tout le lot sans attendre (ConfirmingPublisher), puis attend les confirms
+ * - supprime les événements confirmés, reprogramme les autres avec un backoff exponentiel
+ *
+ * Ordre par utilisateur (aggregateId) : un lot n'envoie qu'un événement par utilisateur
+ * à la fois (vagues successives), et tant qu'un événement attend son retry ou est loué
+ * par une autre instance, les suivants du même utilisateur sont rendus sans être envoyés.
+ *
+ * Un événement toujours refusé après max-attempts essais est mis de côté (parkedAt,
+ * métrique user.outbox.parked) : il ne bloque plus les suivants de son utilisateur,
+ * qui repartent sans lui. À rejouer à la main une fois la cause corrigée.
+ *
+ * Garantie "au moins une fois" : un lot confirmé puis pas supprimé (crash) repartira,
+ * les consommateurs doivent supporter les doublons.
+ *
+ * Pas de relais avec le profil in-memory : pas d'outbox, cf. DirectOutboxWriter.
+ */
+@Service
+@Profile("!in-memory")
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ConfirmingPublisher confirmingPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user-events.outbox.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${user-events.outbox.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${user-events.outbox.backoff.initial-ms:1000}")
+    private long initialBackoffMs;
+
+    @Value("${user-events.outbox.backoff.max-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${user-events.outbox.max-attempts:20}")
+    private int maxAttempts;
+
+    // Identifiant de cette instance pour la location des lots
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+    private volatile Instant oldestPendingAt;
+
+    private Timer publishTimer;
+    private Counter publishedEvents;
+    private Counter failedEvents;
+    private Counter parkedEvents;
+
+    // Marge pour les écritures Mongo du bail et du bilan de vague
+    private static final long LEASE_MARGIN_MS = 1000;
+
+    @PostConstruct
+    void init() {
+        // Un envoi commencé doit finir (confirm ou timeout) avant la fin du bail
+        long minLeaseMs = 2 * confirmingPublisher.maxPublishWaitMs() + LEASE_MARGIN_MS;
+        if (leaseMs < minLeaseMs) {
+            logger.warn("user-events.outbox.lease-ms={} trop court pour les confirms, porté à {} ms", leaseMs, minLeaseMs);
+            leaseMs = minLeaseMs;
+        }
+
+        publishTimer = Timer.builder("user.outbox.publish")
+            .description("Envoi d'un lot de l'outbox, confirms du broker compris")
+            .register(meterRegistry);
+        publishedEvents = Counter.builder("user.outbox.published")
+            .description("Événements envoyés et confirmés par le broker")
+            .register(meterRegistry);
+        failedEvents = Counter.builder("user.outbox.failed")
+            .description("Événements dont l'envoi a échoué (seront retentés)")
+            .register(meterRegistry);
+        parkedEvents = Counter.builder("user.outbox.parked")
+            .description("Événements abandonnés après max-attempts échecs")
+            .register(meterRegistry);
+        Gauge.builder("user.outbox.backlog", backlog, AtomicLong::get)
+            .description("Événements en attente dans l'outbox")
+            .register(meterRegistry);
+        Gauge.builder("user.outbox.parked.size", parked, AtomicLong::get)
+            .description("Événements abandonnés encore dans l'outbox (à rejouer ou supprimer)")
+            .register(meterRegistry);
+        Gauge.builder("user.outbox.lag", this, relay -> relay.lagSeconds())
+            .description("Âge du plus vieil événement pas encore envoyé")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Vide l'outbox tant qu'il y a des lots pleins, puis rend la main jusqu'au prochain passage
+     */
+    @Scheduled(fixedDelayString = "${user-events.outbox.poll-interval-ms:500}")
+    public void relay() {
+        try {
+            boolean more;
+            do {
+                more = relayBatch();
+            } while (more);
+        } catch (RuntimeException e) {
+            // Mongo indisponible par exemple : on réessaiera au prochain passage
+            logger.warn("Relais de l'outbox interrompu: {}", e.getMessage());
+        } finally {
+            refreshBacklog();
+        }
+    }
+
+    /**
+     * Envoie un lot, retourne true s'il faut enchaîner sur le suivant
+     * (requête des dus pleine, au moins un envoi et rien en échec : il en reste sans doute,
+     * même si releaseOutOfOrder a rendu une partie du lot)
+     *
+     * Vague n = le n-ième événement de chaque utilisateur du lot : un utilisateur dont
+     * l'événement échoue n'envoie pas les suivants, qui attendront derrière le retry.
+     */
+    private boolean relayBatch() {
+        Claim claim = claimBatch();
+        List<OutboxEvent> batch = claim.events();
+        if (batch.isEmpty()) {
+            return false; // Rien de dû, ou tout le lot attend des événements plus anciens
+        }
+
+        Map<String, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            byAggregate.computeIfAbsent(aggregateKey(event), key -> new ArrayList<>()).add(event);
+        }
+
+        List<String> confirmedIds = new ArrayList<>(batch.size());
+        List<OutboxEvent> failed = new ArrayList<>();
+        List<OutboxEvent> heldBack = new ArrayList<>();
+        Throwable lastError = null;
+        for (int wave = 0; ; wave++) {
+            List<List<OutboxEvent>> senders = new ArrayList<>();
+            List<OutboxEvent> sending = new ArrayList<>();
+            List<OutboxEvent> remaining = new ArrayList<>();
+            for (List<OutboxEvent> events : byAggregate.values()) {
+                if (events.size() > wave) {
+                    senders.add(events);
+                    sending.add(events.get(wave));
+                    remaining.addAll(events.subList(wave, events.size()));
+                }
+            }
+            if (sending.isEmpty()) {
+                break;
+            }
+
+            // Bail prolongé pour la vague : une vague lente (confirms en retard, fenêtre pleine)
+            // ne doit pas laisser une autre instance reprendre et renvoyer ces événements
+            OptionalLong renewed = renewLease(remaining);
+            if (renewed.isEmpty()) {
+                logger.warn("Bail de l'outbox perdu en cours de lot, {} événements rendus sans envoi", remaining.size());
+                heldBack.addAll(remaining);
+                break;
+            }
+
+            long sendDeadline = renewed.getAsLong();
+            List<CompletableFuture<Void>> confirms = publishTimer.record(() -> publishAndAwaitConfirms(sending, sendDeadline));
+            boolean leaseExhausted = false;
+            for (int i = 0; i < sending.size(); i++) {
+                CompletableFuture<Void> confirm = confirms.get(i);
+                List<OutboxEvent> events = senders.get(i);
+                if (confirm == null) {
+                    // Pas envoyé faute de bail : rendu avec ses suivants, sans compter d'essai
+                    heldBack.addAll(events.subList(wave, events.size()));
+                    events.subList(wave, events.size()).clear();
+                    leaseExhausted = true;
+                } else if (confirm.isCompletedExceptionally()) {
+                    failed.add(sending.get(i));
+                    heldBack.addAll(events.subList(wave + 1, events.size()));
+                    events.subList(wave + 1, events.size()).clear();
+                    lastError = confirm.handle((ignored, error) -> error).join();
+                } else {
+                    confirmedIds.add(sending.get(i).getId());
+                }
+            }
+            if (leaseExhausted) {
+                // Les vagues suivantes ne partiront pas non plus
+                for (List<OutboxEvent> events : byAggregate.values()) {
+                    if (events.size() > wave + 1) {
+                        heldBack.addAll(events.subList(wave + 1, events.size()));
+                    }
+                }
+                logger.warn("Vague de l'outbox trop lente pour le bail, {} événements rendus sans envoi", heldBack.size());
+                break;
+            }
+        }
+
+        if (!confirmedIds.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("id").in(confirmedIds)), OutboxEvent.class);
+            publishedEvents.increment(confirmedIds.size());
+        }
+        if (!failed.isEmpty() || !heldBack.isEmpty()) {
+            failedEvents.increment(failed.size());
+            scheduleRetry(failed, heldBack, lastError);
+            return false; // Le broker a un souci : on arrête de vider pour ce passage
+        }
+        return claim.full();
+    }
+
+    /**
+     * Événements loués par un passage, et si la requête des dus a rempli tout le lot
+     * (avant que releaseOutOfOrder n'en rende une partie)
+     */
+    private record Claim(List<OutboxEvent> events, boolean full) {
+    }
+
+    /**
+     * Prolonge le bail des événements encore à envoyer, retourne l'heure (System.nanoTime)
+     * après laquelle plus aucun envoi ne doit commencer, ou rien si une partie du bail a été
+     * perdue (expirée puis reprise par une autre instance)
+     */
+    private OptionalLong renewLease(List<OutboxEvent> events) {
+        long renewedAt = System.nanoTime();
+        Instant leaseEnd = Instant.now().truncatedTo(ChronoUnit.MILLIS).plusMillis(leaseMs);
+        List<String> ids = events.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+        long renewed = mongoTemplate.updateMulti(
+            Query.query(Criteria.where("id").in(ids).and("lockedBy").is(instanceId)),
+            new Update().set("lockedUntil", leaseEnd),
+            OutboxEvent.class
+        ).getMatchedCount();
+        if (renewed < ids.size()) {
+            return OptionalLong.empty();
+        }
+        // Un envoi commencé avant cette limite est confirmé (ou en timeout) avant la fin du bail
+        long sendWindowMs = leaseMs - confirmingPublisher.maxPublishWaitMs() - LEASE_MARGIN_MS;
+        return OptionalLong.of(renewedAt + TimeUnit.MILLISECONDS.toNanos(sendWindowMs));
+    }
+
+    // Les événements écrits avant l'ajout d'aggregateId n'ont pas d'ordre à respecter
+    private static String aggregateKey(OutboxEvent event) {
+        return event.getAggregateId() != null ? event.getAggregateId() : "event:" + event.getId();
+    }
+
+    /**
+     * Prend un lot d'événements dus et pas loués par une autre instance
+     */
+    private Claim claimBatch() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        Query due = new Query(new Criteria().andOperator(
+                Criteria.where("nextAttemptAt").lte(now),
+                notLocked(now)))
+            .with(Sort.by(Sort.Direction.ASC, "createdAt", "id"))
+            .limit(batchSize);
+        due.fields().include("id");
+        List<String> ids = mongoTemplate.find(due, OutboxEvent.class).stream()
+            .map(OutboxEvent::getId)
+            .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new Claim(List.of(), false);
+        }
+
+        // Une autre instance a pu prendre une partie des IDs entre-temps : on relit ce qu'on a eu
+        Instant leaseEnd = now.plusMillis(leaseMs);
+        mongoTemplate.updateMulti(
+            new Query(new Criteria().andOperator(Criteria.where("id").in(ids), notLocked(now))),
+            new Update().set("lockedBy", instanceId).set("lockedUntil", leaseEnd),
+            OutboxEvent.class
+        );
+        List<OutboxEvent> claimed = mongoTemplate.find(
+            Query.query(Criteria.where("lockedBy").is(instanceId).and("lockedUntil").is(leaseEnd))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "id")),
+            OutboxEvent.class
+        );
+        return new Claim(releaseOutOfOrder(claimed), ids.size() == batchSize);
+    }
+
+    /**
+     * Rend les événements qui doivent attendre un événement plus ancien du même utilisateur
+     * resté hors du lot : en backoff après un échec, loué par une autre instance, ou pas
+     * encore pris. Fait après la location, pour qu'une instance concurrente ne passe pas entre deux.
+     */
+    private List<OutboxEvent> releaseOutOfOrder(List<OutboxEvent> claimed) {
+        Set<String> claimedIds = claimed.stream().map(OutboxEvent::getId).collect(Collectors.toSet());
+        Set<String> aggregateIds = claimed.stream()
+            .map(OutboxEvent::getAggregateId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        if (aggregateIds.isEmpty()) {
+            return claimed;
+        }
+
+        // Un événement mis de côté ne bloque plus personne
+        Query others = Query.query(new Criteria().andOperator(
+            Criteria.where("aggregateId").in(aggregateIds),
+            Criteria.where("id").nin(claimedIds),
+            Criteria.where("parkedAt").is(null)));
+        others.fields().include("id").include("aggregateId").include("createdAt");
+        Map<String, OutboxEvent> oldestOther = new HashMap<>();
+        for (OutboxEvent event : mongoTemplate.find(others, OutboxEvent.class)) {
+            oldestOther.merge(event.getAggregateId(), event, (first, second) -> isBefore(first, second) ? first : second);
+        }
+        if (oldestOther.isEmpty()) {
+            return claimed;
+        }
+
+        List<OutboxEvent> kept = new ArrayList<>(claimed.size());
+        List<String> released = new ArrayList<>();
+        for (OutboxEvent event : claimed) {
+            OutboxEvent blocker = event.getAggregateId() != null ? oldestOther.get(event.getAggregateId()) : null;
+            if (blocker != null && isBefore(blocker, event)) {
+                released.add(event.getId());
+            } else {
+                kept.add(event);
+            }
+        }
+        if (!released.isEmpty()) {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(released)),
+                new Update().unset("lockedBy").unset("lockedUntil"), OutboxEvent.class);
+            logger.debug("{} événements outbox rendus, en attente d'un événement plus ancien du même utilisateur",
+                released.size());
+        }
+        return kept;
+    }
+
+    // Même ordre que la lecture des lots : createdAt, puis id
+    private static boolean isBefore(OutboxEvent first, OutboxEvent second) {
+        int byDate = first.getCreatedAt().compareTo(second.getCreatedAt());
+        return byDate != 0 ? byDate < 0 : first.getId().compareTo(second.getId()) < 0;
+    }
+
+    private Criteria notLocked(Instant now) {
+        return new Criteria().orOperator(
+            Criteria.where("lockedUntil").is(null),
+            Criteria.where("lockedUntil").lt(now)
+        );
+    }
+
+    /**
+     * Envoie tout le lot sans attendre, puis attend que chaque message soit confirmé ou en erreur
+     * (chaque futur a son propre timeout dans ConfirmingPublisher)
+     * Rien n'est envoyé après sendDeadline (System.nanoTime) : futur null pour ces événements
+     */
+    private List<CompletableFuture<Void>> publishAndAwaitConfirms(List<OutboxEvent> batch, long sendDeadline) {
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(batch.size());
+        List<CompletableFuture<Void>> sent = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            if (System.nanoTime() - sendDeadline > 0) {
+                confirms.add(null);
+                continue;
+            }
+            CompletableFuture<Void> confirm = confirmingPublisher.publish(
+                event.getExchange(), event.getRoutingKey(), event.getPayload());
+            confirms.add(confirm);
+            sent.add(confirm);
+        }
+        CompletableFuture.allOf(sent.toArray(CompletableFuture<?>[]::new))
+            .exceptionally(error -> null)
+            .join();
+        return confirms;
+    }
+
+    /**
+     * Reprogramme les événements en échec : 1s, 2s, 4s... plafonné à backoff.max-ms
+     * Au-delà de max-attempts, l'événement est mis de côté (plus de nextAttemptAt)
+     * Les suivants des mêmes utilisateurs sont simplement rendus, ils attendront derrière
+     */
+    private void scheduleRetry(List<OutboxEvent> failed, List<OutboxEvent> heldBack, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String reason = cause != null ? cause.getMessage() : "inconnue";
+        if (!failed.isEmpty()) {
+            logger.warn("Échec d'envoi de {} événements outbox ({} suivants retenus), nouvel essai plus tard: {}",
+                failed.size(), heldBack.size(), reason);
+        }
+
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxEvent.class);
+        for (OutboxEvent event : failed) {
+            int attempts = event.getAttempts() + 1;
+            if (attempts >= maxAttempts) {
+                logger.error("Événement outbox {} ({} pour l'utilisateur {}) abandonné après {} essais: {}",
+                    event.getId(), event.getRoutingKey(), event.getAggregateId(), attempts, reason);
+                bulk.updateOne(
+                    ownedBy(event.getId()),
+                    new Update()
+                        .set("attempts", attempts)
+                        .set("parkedAt", now)
+                        .unset("nextAttemptAt")
+                        .set("lastError", reason)
+                        .unset("lockedBy")
+                        .unset("lockedUntil")
+                );
+                parkedEvents.increment();
+                continue;
+            }
+            long delayMs = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempts - 1, 20));
+            bulk.updateOne(
+                ownedBy(event.getId()),
+                new Update()
+                    .set("attempts", attempts)
+                    .set("nextAttemptAt", now.plusMillis(delayMs))
+                    .set("lastError", reason)
+                    .unset("lockedBy")
+                    .unset("lockedUntil")
+            );
+        }
+        if (!heldBack.isEmpty()) {
+            bulk.updateMulti(
+                Query.query(Criteria.where("id").in(heldBack.stream().map(OutboxEvent::getId).collect(Collectors.toList()))
+                    .and("lockedBy").is(instanceId)),
+                new Update().unset("lockedBy").unset("lockedUntil")
+            );
+        }
+        bulk.execute();
+    }
+
+    // Bail expiré et repris entre-temps : l'événement est à l'autre instance, on n'y touche plus
+    private Query ownedBy(String id) {
+        return Query.query(Criteria.where("id").is(id).and("lockedBy").is(instanceId));
+    }
+
+    private void refreshBacklog() {
+        try {
+            long parkedCount = mongoTemplate.count(Query.query(Criteria.where("parkedAt").exists(true)), OutboxEvent.class);
+            parked.set(parkedCount);
+            backlog.set(Math.max(0, mongoTemplate.estimatedCount(OutboxEvent.class) - parkedCount));
+            Query oldest = Query.query(Criteria.where("parkedAt").is(null))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt")).limit(1);
+            oldest.fields().include("createdAt");
+            OutboxEvent event = mongoTemplate.findOne(oldest, OutboxEvent.class);
+            oldestPendingAt = event != null ? event.getCreatedAt() : null;
+        } catch (RuntimeException e) {
+            logger.debug("Impossible de mesurer l'outbox: {}", e.getMessage());
+        }
+    }
+
+    private double lagSeconds() {
+        Instant oldest = oldestPendingAt;
+        return oldest != null ? Duration.between(oldest, Instant.now()).toMillis() / 1000.0 : 0;
+    }
+}
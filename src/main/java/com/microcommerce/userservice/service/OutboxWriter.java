@@ -0,0 +1,20 @@
+package com.microcommerce.userservice.service;
+
+import com.microcommerce.userservice.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Écriture des événements utilisateurs préparés par UserEventPublisher
+ *
+ * MongoOutboxWriter en temps normal (outbox Mongo, envoi par OutboxRelay),
+ * DirectOutboxWriter avec le profil in-memory (pas de base, envoi direct).
+ */
+public interface OutboxWriter {
+
+    /**
+     * Enregistre les événements dans l'ordre de la liste
+     * Lève une exception si l'écriture échoue : la modif de l'utilisateur doit échouer aussi
+     */
+    void write(List<OutboxEvent> events);
+}
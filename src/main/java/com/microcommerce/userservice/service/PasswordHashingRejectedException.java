@@ -0,0 +1,23 @@
+package com.microcommerce.userservice.service;
+
+/**
+ * Levée quand le pool de hachage des mots de passe est saturé
+ *
+ * Les contrôleurs la transforment en 503 + Retry-After au lieu de bloquer
+ * un thread Tomcat de plus sur BCrypt
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
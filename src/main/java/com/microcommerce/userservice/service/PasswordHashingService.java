@@ -0,0 +1,208 @@
+package com.microcommerce.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool dédié au hachage des mots de passe (BCrypt, c'est ~250ms de CPU par appel)
+ *
+ * Avant, login/inscription hachaient directement sur le thread Tomcat : une rafale
+ * de logins bloquait tous les workers et affamait les GET /api/users.
+ * Maintenant :
+ * - le hachage tourne sur un pool borné (threads + file d'attente limitée)
+ * - chaque opération (login, inscription, mise à jour) a son propre plafond de requêtes en cours
+ * - si c'est plein, on refuse tout de suite (503 + Retry-After côté contrôleur)
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    /**
+     * Opérations qui hachent un mot de passe, chacune avec son plafond
+     */
+    public enum Operation {
+        LOGIN,
+        REGISTER,
+        UPDATE
+    }
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${password-hashing.pool-size:0}") // 0 = un thread par coeur
+    private int poolSize;
+
+    @Value("${password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${password-hashing.max-concurrent.login:32}")
+    private int maxConcurrentLogin;
+
+    @Value("${password-hashing.max-concurrent.register:16}")
+    private int maxConcurrentRegister;
+
+    @Value("${password-hashing.max-concurrent.update:8}")
+    private int maxConcurrentUpdate;
+
+    @Value("${password-hashing.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${password-hashing.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+    private final Map<Operation, Semaphore> permits = new EnumMap<>(Operation.class);
+    private final Map<Operation, Timer> hashTimers = new EnumMap<>(Operation.class);
+    private final Map<Operation, Timer> waitTimers = new EnumMap<>(Operation.class);
+    private final Map<Operation, Counter> rejections = new EnumMap<>(Operation.class);
+
+    @PostConstruct
+    void init() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+            threads, threads,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        permits.put(Operation.LOGIN, new Semaphore(maxConcurrentLogin));
+        permits.put(Operation.REGISTER, new Semaphore(maxConcurrentRegister));
+        permits.put(Operation.UPDATE, new Semaphore(maxConcurrentUpdate));
+
+        for (Operation operation : Operation.values()) {
+            String tag = operation.name().toLowerCase();
+            hashTimers.put(operation, Timer.builder("password.hashing.duration")
+                .description("Temps CPU de hachage/vérification d'un mot de passe")
+                .tag("operation", tag)
+                .register(meterRegistry));
+            waitTimers.put(operation, Timer.builder("password.hashing.wait")
+                .description("Attente dans la file avant hachage")
+                .tag("operation", tag)
+                .register(meterRegistry));
+            rejections.put(operation, Counter.builder("password.hashing.rejected")
+                .description("Requêtes refusées car le pool de hachage est saturé")
+                .tag("operation", tag)
+                .register(meterRegistry));
+            Semaphore semaphore = permits.get(operation);
+            Gauge.builder("password.hashing.in-flight", semaphore,
+                    s -> permitLimit(operation) - s.availablePermits())
+                .description("Requêtes en cours de hachage par opération")
+                .tag("operation", tag)
+                .register(meterRegistry);
+        }
+
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size())
+            .description("Tâches de hachage en attente")
+            .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Threads de hachage occupés")
+            .register(meterRegistry);
+
+        logger.info("Pool de hachage des mots de passe: {} threads, file de {}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Hache un mot de passe sur le pool dédié
+     */
+    public String encode(Operation operation, CharSequence rawPassword) {
+        return execute(operation, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Vérifie un mot de passe sur le pool dédié
+     */
+    public boolean matches(Operation operation, CharSequence rawPassword, String encodedPassword) {
+        return execute(operation, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Indique si le hash stocké doit être refait (autre algo ou autre coût que la cible)
+     * Pas de hachage ici, juste une lecture du préfixe : on reste sur le thread appelant
+     */
+    public boolean needsUpgrade(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T execute(Operation operation, Callable<T> task) {
+        Semaphore semaphore = permits.get(operation);
+        if (!semaphore.tryAcquire()) {
+            throw reject(operation, "Trop de requêtes " + operation.name().toLowerCase() + " en cours");
+        }
+        try {
+            long submittedAt = System.nanoTime();
+            Future<T> future;
+            try {
+                future = executor.submit(() -> {
+                    waitTimers.get(operation).record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                    return hashTimers.get(operation).recordCallable(task);
+                });
+            } catch (RejectedExecutionException e) {
+                throw reject(operation, "File de hachage pleine");
+            }
+
+            try {
+                return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                throw reject(operation, "Hachage trop long, le pool est saturé");
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Hachage du mot de passe interrompu");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new RuntimeException("Erreur lors du hachage du mot de passe", cause);
+            }
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private PasswordHashingRejectedException reject(Operation operation, String message) {
+        rejections.get(operation).increment();
+        logger.warn("Hachage refusé ({}): {}", operation, message);
+        return new PasswordHashingRejectedException(message, retryAfterSeconds);
+    }
+
+    private int permitLimit(Operation operation) {
+        return switch (operation) {
+            case LOGIN -> maxConcurrentLogin;
+            case REGISTER -> maxConcurrentRegister;
+            case UPDATE -> maxConcurrentUpdate;
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package com.microcommerce.userservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.microcommerce.userservice.event.ProductEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache local des produits, alimenté par les événements product.* (cf. ProductEventListener)
+ *
+ * Permet d'afficher nom / prix / stock d'un produit sans appel HTTP synchrone au product-service.
+ * - taille bornée (Caffeine, éviction W-TinyLFU)
+ * - chaque entrée porte la version (horodatage) de son événement : les événements
+ *   en retard ou rejoués (retry, plusieurs consommateurs) sont ignorés
+ * - les suppressions laissent une tombstone pendant product-cache.tombstone-ttl-seconds
+ * - un snapshot complet peut être chargé au démarrage ou par un admin (loadSnapshot)
+ *
+ * Un produit absent du cache n'existe pas forcément : il peut ne pas avoir encore été vu.
+ */
+@Component
+public class ProductCache {
+
+    @Value("${product-cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${product-cache.tombstone-ttl-seconds:3600}")
+    private long tombstoneTtlSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, CachedProduct> products;
+
+    private Counter appliedEvents;
+    private Counter staleEvents;
+
+    @PostConstruct
+    void init() {
+        long tombstoneTtlNanos = TimeUnit.SECONDS.toNanos(tombstoneTtlSeconds);
+        products = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new Expiry<String, CachedProduct>() {
+                @Override
+                public long expireAfterCreate(String id, CachedProduct product, long currentTime) {
+                    return product.isDeleted() ? tombstoneTtlNanos : Long.MAX_VALUE;
+                }
+
+                @Override
+                public long expireAfterUpdate(String id, CachedProduct product, long currentTime, long currentDuration) {
+                    return product.isDeleted() ? tombstoneTtlNanos : Long.MAX_VALUE;
+                }
+
+                @Override
+                public long expireAfterRead(String id, CachedProduct product, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "products");
+        appliedEvents = eventCounter("applied");
+        staleEvents = eventCounter("stale");
+    }
+
+    /**
+     * Applique un événement produit, retourne false s'il est plus vieux que ce qu'on a déjà
+     */
+    public boolean apply(ProductEvent event) {
+        if (event.getProductId() == null || event.getEventType() == null) {
+            throw new RuntimeException("Événement produit invalide: " + event);
+        }
+        Instant version = event.getTimestamp() != null
+            ? event.getTimestamp().atZone(ZoneId.systemDefault()).toInstant()
+            : Instant.now();
+        boolean applied = put(CachedProduct.from(event, version));
+        (applied ? appliedEvents : staleEvents).increment();
+        return applied;
+    }
+
+    /**
+     * Charge un snapshot complet du catalogue
+     *
+     * Les produits sans horodatage prennent snapshotTakenAt comme version : à prendre
+     * AVANT de lire le snapshot, pour que les événements arrivés pendant la lecture gagnent.
+     * Retourne le nombre de produits pris en compte.
+     */
+    public int loadSnapshot(Collection<ProductEvent> snapshot, Instant snapshotTakenAt) {
+        int loaded = 0;
+        for (ProductEvent product : snapshot) {
+            if (product.getProductId() == null) {
+                continue;
+            }
+            Instant version = product.getTimestamp() != null
+                ? product.getTimestamp().atZone(ZoneId.systemDefault()).toInstant()
+                : snapshotTakenAt;
+            CachedProduct cached = new CachedProduct(product.getProductId(), product.getName(), product.getPrice(),
+                product.getStock(), product.getCategory(), version, false);
+            if (put(cached)) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Produit en cache, null si inconnu ou supprimé
+     */
+    public CachedProduct get(String productId) {
+        CachedProduct product = products.getIfPresent(productId);
+        return product != null && !product.isDeleted() ? product : null;
+    }
+
+    /**
+     * Produits en cache parmi ces IDs (les inconnus et supprimés sont absents de la map)
+     */
+    public Map<String, CachedProduct> getAll(Collection<String> productIds) {
+        Map<String, CachedProduct> result = new LinkedHashMap<>();
+        products.getAllPresent(productIds).forEach((id, product) -> {
+            if (!product.isDeleted()) {
+                result.put(id, product);
+            }
+        });
+        return result;
+    }
+
+    public long estimatedSize() {
+        return products.estimatedSize();
+    }
+
+    // Remplace l'entrée seulement si la nouvelle version est strictement plus récente (atomique par produit)
+    private boolean put(CachedProduct candidate) {
+        CachedProduct result = products.asMap().compute(candidate.getProductId(), (id, current) ->
+            current == null || candidate.getVersion().isAfter(current.getVersion()) ? candidate : current);
+        return result == candidate;
+    }
+
+    private Counter eventCounter(String outcome) {
+        return Counter.builder("products.cache.events")
+            .description("Événements produits reçus par le cache local")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
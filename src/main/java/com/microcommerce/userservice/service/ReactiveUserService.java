@@ -0,0 +1,132 @@
+package com.microcommerce.userservice.service;
+
+import com.microcommerce.userservice.dto.UserInfoDto;
+import com.microcommerce.userservice.dto.UserPage;
+import com.microcommerce.userservice.dto.UserResponse;
+import com.microcommerce.userservice.repository.ReactiveUserRepository;
+import com.microcommerce.userservice.repository.UserSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Lectures d'utilisateurs non bloquantes (profil "reactive")
+ *
+ * Même contrat que les lectures de UserService (pagination, curseurs, erreurs) :
+ * les règles sont partagées, seul l'accès à MongoDB change (ReactiveUserRepository).
+ * Le cache local (UserCache) reste devant les lectures par ID.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserService {
+
+    @Autowired
+    private ReactiveUserRepository reactiveUserRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * Une page d'utilisateurs après le curseur (ID)
+     */
+    public Mono<UserPage> getAllUsers(String cursor, Integer size) {
+        return Mono.defer(() -> {
+            int pageSize = userService.resolvePageSize(size);
+            return reactiveUserRepository
+                .findByIdGreaterThanOrderByIdAsc(userService.resolveCursor(cursor), PageRequest.of(0, pageSize + 1))
+                .collectList()
+                .map(users -> userService.toPage(users, pageSize));
+        });
+    }
+
+    /**
+     * Tous les utilisateurs après le curseur, émis au fil du curseur Mongo
+     * La demande du client (back-pressure) règle la vitesse de lecture
+     */
+    public Flux<UserResponse> streamUsers(String cursor) {
+        // Curseur vérifié tout de suite : une erreur avant la réponse reste un 400 propre
+        return reactiveUserRepository
+            .findByIdGreaterThanOrderByIdAsc(userService.resolveCursor(cursor))
+            .map(userService::convertToUserResponse);
+    }
+
+    /**
+     * Un utilisateur par ID (cache local d'abord)
+     */
+    public Mono<UserResponse> getUserById(String id) {
+        return getCachedUser(id).map(userService::convertToUserResponse);
+    }
+
+    /**
+     * Infos d'un utilisateur pour les autres services (cache local d'abord)
+     */
+    public Mono<UserInfoDto> getUserInfoDto(String id) {
+        return getCachedUser(id).map(userService::convertToUserInfoDto);
+    }
+
+    /**
+     * Recherche par nom, modes "prefix" (défaut) et "text" comme UserService
+     */
+    public Mono<UserPage> searchUsersByName(String name, String mode, String cursor, Integer size) {
+        return Mono.defer(() -> {
+            String normalized = userService.normalizeSearch(name);
+            int pageSize = userService.resolvePageSize(size);
+
+            if (userService.isTextSearch(mode)) {
+                List<String> tokens = userService.searchTokens(name, normalized);
+                int offset = userService.resolveOffset(cursor);
+                return reactiveUserRepository.searchByNameTokens(tokens, offset, pageSize + 1)
+                    .collectList()
+                    .map(users -> userService.toPage(users, pageSize,
+                        userService.nextTextCursor(users, offset, pageSize)));
+            }
+
+            String[] after = userService.decodeSearchCursor(cursor);
+            return reactiveUserRepository.searchByNamePrefix(normalized, after[0], after[1], pageSize + 1)
+                .collectList()
+                .map(users -> userService.toPage(users, pageSize, userService.nextPrefixCursor(users, pageSize)));
+        });
+    }
+
+    /**
+     * Une page d'utilisateurs d'un rôle après le curseur (ID)
+     */
+    public Mono<UserPage> getUsersByRole(String role, String cursor, Integer size) {
+        return Mono.defer(() -> {
+            int pageSize = userService.resolvePageSize(size);
+            return reactiveUserRepository
+                .findByRoleAndIdGreaterThanOrderByIdAsc(role, userService.resolveCursor(cursor),
+                    PageRequest.of(0, pageSize + 1))
+                .collectList()
+                .map(users -> userService.toPage(users, pageSize));
+        });
+    }
+
+    /**
+     * Tous les utilisateurs d'un rôle après le curseur, en flux
+     */
+    public Flux<UserResponse> streamUsersByRole(String role, String cursor) {
+        return reactiveUserRepository
+            .findByRoleAndIdGreaterThanOrderByIdAsc(role, userService.resolveCursor(cursor))
+            .map(userService::convertToUserResponse);
+    }
+
+    /**
+     * Lit un utilisateur via le cache local, MongoDB (réactif) seulement sur un miss
+     */
+    private Mono<CachedUser> getCachedUser(String id) {
+        return Mono.fromFuture(() -> userCache.getByIdAsync(id, key ->
+                reactiveUserRepository.findSummaryById(key)
+                    .map(CachedUser::from)
+                    .toFuture()))
+            .switchIfEmpty(Mono.error(() -> new RuntimeException("Utilisateur non trouvé avec l'ID: " + id)));
+    }
+}
@@ -0,0 +1,295 @@
+package com.microcommerce.userservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Cache local (Caffeine, éviction W-TinyLFU) devant les lectures d'utilisateurs
+ *
+ * GET /api/users/{id} et surtout /internal/{id} tapaient MongoDB à chaque appel alors
+ * que les utilisateurs changent rarement. Invalidation :
+ * - synchrone dans UserService (create/update/delete)
+ * - sur toutes les instances via les events user.* (cf. UserCacheInvalidationListener)
+ * - un TTL en filet de sécurité si un event se perd
+ *
+ * Les lectures en lot (getAllById) fusionnent les chargements concurrents :
+ * deux batchs qui demandent les mêmes IDs en même temps partagent un seul aller-retour Mongo.
+ */
+@Component
+public class UserCache {
+
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    @Value("${user-cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${user-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, CachedUser> usersById;
+
+    // Index email -> id, revérifié à la lecture (un email peut changer de propriétaire)
+    private Cache<String, String> idsByEmail;
+
+    // Chargements en lot en cours, par ID (pour que les batchs concurrents se les partagent)
+    private final ConcurrentHashMap<String, InFlightLoad> inFlight = new ConcurrentHashMap<>();
+
+    // Numéro de la dernière invalidation, par tranche d'IDs : pour les chargements par email,
+    // dont on ne connaît l'ID qu'après coup (une collision de tranche ne fait que sauter un put)
+    private final AtomicLong invalidationSequence = new AtomicLong();
+    private final AtomicLongArray lastInvalidation = new AtomicLongArray(INVALIDATION_STRIPES);
+    private volatile long lastInvalidateAll;
+
+    private Timer loadTimer;
+
+    @PostConstruct
+    void init() {
+        usersById = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+        idsByEmail = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+
+        // cache.gets (hit/miss), cache.size, cache.evictions... dans /actuator/metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByEmail, "users.by-email");
+        Gauge.builder("users.cache.hit.ratio", usersById, cache -> cache.stats().hitRate())
+            .description("Taux de hit du cache utilisateurs par ID")
+            .register(meterRegistry);
+        loadTimer = Timer.builder("users.cache.load")
+            .description("Temps de chargement d'un utilisateur depuis MongoDB sur un miss")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Lit un utilisateur par ID, en le chargeant via loader sur un miss
+     * Retourne null si le loader ne trouve rien (les absences ne sont pas mises en cache)
+     */
+    public CachedUser getById(String id, Function<String, CachedUser> loader) {
+        return usersById.get(id, key -> loadTimer.record(() -> loader.apply(key)));
+    }
+
+    /**
+     * Lit plusieurs utilisateurs par ID
+     *
+     * 1. ce qui est en cache est servi directement
+     * 2. les IDs déjà en cours de chargement par un autre batch sont attendus
+     * 3. le reste est chargé en un seul appel à bulkLoader (un $in côté Mongo)
+     *
+     * Les IDs introuvables sont simplement absents de la map retournée
+     */
+    public Map<String, CachedUser> getAllById(Collection<String> ids,
+                                              Function<Set<String>, Map<String, CachedUser>> bulkLoader) {
+        Map<String, CachedUser> result = new HashMap<>(usersById.getAllPresent(ids));
+
+        Map<String, InFlightLoad> owned = new HashMap<>();
+        Map<String, InFlightLoad> awaited = new HashMap<>();
+        for (String id : ids) {
+            if (result.containsKey(id) || owned.containsKey(id) || awaited.containsKey(id)) {
+                continue;
+            }
+            InFlightLoad load = new InFlightLoad();
+            InFlightLoad existing = inFlight.putIfAbsent(id, load);
+            if (existing == null) {
+                owned.put(id, load);
+            } else {
+                awaited.put(id, existing);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            long startedAt = invalidationSequence.get();
+            try {
+                Map<String, CachedUser> loaded = loadTimer.record(() -> bulkLoader.apply(owned.keySet()));
+                owned.forEach((id, load) -> {
+                    CachedUser user = loaded.get(id);
+                    // Si l'utilisateur a été modifié pendant le chargement, on ne cache pas la vieille version
+                    if (user != null) {
+                        putUnlessInvalidated(id, user, load, startedAt);
+                        result.put(id, user);
+                    }
+                    load.future.complete(user);
+                });
+            } catch (RuntimeException e) {
+                owned.values().forEach(load -> load.future.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+        }
+
+        awaited.forEach((id, load) -> {
+            CachedUser user = load.future.join();
+            if (user != null) {
+                result.put(id, user);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Lit un utilisateur par ID sans bloquer (chemin réactif) : asyncLoader renvoie un futur
+     * Comme getAllById, les chargements concurrents du même ID sont partagés et une
+     * modification pendant le chargement empêche de cacher la vieille version
+     */
+    public CompletableFuture<CachedUser> getByIdAsync(String id,
+                                                      Function<String, CompletableFuture<CachedUser>> asyncLoader) {
+        CachedUser cached = usersById.getIfPresent(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        InFlightLoad load = new InFlightLoad();
+        InFlightLoad existing = inFlight.putIfAbsent(id, load);
+        if (existing != null) {
+            return existing.future;
+        }
+
+        long startedAt = System.nanoTime();
+        long sequenceAtStart = invalidationSequence.get();
+        CompletableFuture<CachedUser> loading;
+        try {
+            loading = asyncLoader.apply(id);
+        } catch (RuntimeException e) {
+            loading = CompletableFuture.failedFuture(e);
+        }
+        loading.whenComplete((user, error) -> {
+            loadTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            if (error == null && user != null) {
+                putUnlessInvalidated(id, user, load, sequenceAtStart);
+            }
+            inFlight.remove(id, load);
+            if (error != null) {
+                load.future.completeExceptionally(error);
+            } else {
+                load.future.complete(user);
+            }
+        });
+        return load.future;
+    }
+
+    /**
+     * Lit un utilisateur par email
+     * L'index email -> id ne sert que si l'entrée par ID a toujours cet email
+     * Sur un miss, l'utilisateur chargé est aussi mis en cache par ID, sauf s'il a été
+     * invalidé pendant le chargement (même garde que getAllById)
+     */
+    public CachedUser getByEmail(String email, Function<String, CachedUser> loader) {
+        String id = idsByEmail.getIfPresent(email);
+        if (id != null) {
+            CachedUser cached = usersById.getIfPresent(id);
+            if (cached != null && email.equals(cached.getEmail())) {
+                return cached;
+            }
+        }
+
+        long startedAt = invalidationSequence.get();
+        CachedUser loaded = loadTimer.record(() -> loader.apply(email));
+        if (loaded == null || invalidatedSince(loaded.getId(), startedAt)) {
+            return loaded;
+        }
+        usersById.put(loaded.getId(), loaded);
+        idsByEmail.put(email, loaded.getId());
+        // Une invalidation arrivée entre la vérification et le put n'a rien trouvé à retirer
+        if (invalidatedSince(loaded.getId(), startedAt)) {
+            usersById.asMap().remove(loaded.getId(), loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Oublie un utilisateur (après modification ou suppression)
+     */
+    public void invalidate(String id) {
+        if (id == null) {
+            return;
+        }
+        lastInvalidation.accumulateAndGet(stripe(id), invalidationSequence.incrementAndGet(), Math::max);
+        InFlightLoad load = inFlight.get(id);
+        if (load != null) {
+            load.invalidated = true;
+        }
+        CachedUser previous = usersById.getIfPresent(id);
+        usersById.invalidate(id);
+        if (previous != null) {
+            idsByEmail.invalidate(previous.getEmail());
+        }
+    }
+
+    /**
+     * Oublie l'entrée d'index pour un email (création ou changement d'email)
+     */
+    public void invalidateEmail(String email) {
+        if (email != null) {
+            idsByEmail.invalidate(email);
+        }
+    }
+
+    /**
+     * Vide complètement le cache
+     */
+    public void invalidateAll() {
+        lastInvalidateAll = invalidationSequence.incrementAndGet();
+        usersById.invalidateAll();
+        idsByEmail.invalidateAll();
+    }
+
+    /**
+     * Met en cache un utilisateur chargé, sauf s'il a été invalidé depuis le début du chargement
+     * (invalidate pendant le chargement, ou invalidateAll)
+     */
+    private void putUnlessInvalidated(String id, CachedUser user, InFlightLoad load, long startedAt) {
+        if (load.invalidated || invalidatedSince(id, startedAt)) {
+            return;
+        }
+        usersById.put(id, user);
+        // Une invalidation arrivée entre la vérification et le put n'a rien trouvé à retirer
+        if (load.invalidated || invalidatedSince(id, startedAt)) {
+            usersById.asMap().remove(id, user);
+        }
+    }
+
+    private boolean invalidatedSince(String id, long sequence) {
+        return lastInvalidation.get(stripe(id)) > sequence || lastInvalidateAll > sequence;
+    }
+
+    private static int stripe(String id) {
+        return id.hashCode() & (INVALIDATION_STRIPES - 1);
+    }
+
+    /**
+     * Chargement en cours pour un ID, partagé entre les batchs concurrents
+     */
+    private static final class InFlightLoad {
+        private final CompletableFuture<CachedUser> future = new CompletableFuture<>();
+        private volatile boolean invalidated;
+    }
+}
@@ -1,18 +1,26 @@
 package com.microcommerce.userservice.service;
 
 import com.microcommerce.userservice.event.UserEvent;
+import com.microcommerce.userservice.model.OutboxEvent;
 import com.microcommerce.userservice.model.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * Service pour publier les événements utilisateurs vers RabbitMQ
  * 
  * Chaque fois qu'un utilisateur est créé, modifié ou supprimé,
  * on envoie un event pour que les autres services se synchronisent.
+ * 
+ * Les événements ne partent plus directement : ils sont écrits dans l'outbox Mongo
+ * (avec la modif de l'utilisateur, cf. UserWriteTransaction) et OutboxRelay les envoie
+ * en tâche de fond. Une requête n'attend plus RabbitMQ et une panne du broker ne perd rien.
+ * Avec le profil in-memory (pas de base), ils partent directement (cf. DirectOutboxWriter).
  */
 @Service
 public class UserEventPublisher {
@@ -26,7 +34,7 @@ public class UserEventPublisher {
     public static final String USER_DELETED_ROUTING_KEY = "user.deleted";
     
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private OutboxWriter outboxWriter;
     
     /**
      * Publie un événement de création d'utilisateur
@@ -34,7 +42,20 @@ public class UserEventPublisher {
     public void publishUserCreated(User user) {
         UserEvent event = createUserEvent(user, UserEvent.EventType.CREATED);
         publishEvent(event, USER_CREATED_ROUTING_KEY);
-        logger.info("Événement USER_CREATED publié pour l'utilisateur: {}", user.getId());
+        logger.info("Événement USER_CREATED mis dans l'outbox pour l'utilisateur: {}", user.getId());
+    }
+    
+    /**
+     * Publie les événements de création d'un lot d'utilisateurs (import en masse)
+     * Un seul insert dans l'outbox pour tout le lot, toujours un message UserEvent par utilisateur
+     */
+    public void publishUsersCreated(List<User> users) {
+        List<OutboxEvent> events = users.stream()
+            .map(user -> new OutboxEvent(USER_EXCHANGE, USER_CREATED_ROUTING_KEY,
+                createUserEvent(user, UserEvent.EventType.CREATED)))
+            .collect(Collectors.toList());
+        outboxWriter.write(events);
+        logger.info("{} événements USER_CREATED mis dans l'outbox (import)", users.size());
     }
     
     /**
@@ -43,7 +64,7 @@ public class UserEventPublisher {
     public void publishUserUpdated(User user) {
         UserEvent event = createUserEvent(user, UserEvent.EventType.UPDATED);
         publishEvent(event, USER_UPDATED_ROUTING_KEY);
-        logger.info("Événement USER_UPDATED publié pour l'utilisateur: {}", user.getId());
+        logger.info("Événement USER_UPDATED mis dans l'outbox pour l'utilisateur: {}", user.getId());
     }
     
     /**
@@ -54,7 +75,7 @@ public class UserEventPublisher {
         event.setUserId(userId);
         event.setEventType(UserEvent.EventType.DELETED);
         publishEvent(event, USER_DELETED_ROUTING_KEY);
-        logger.info("Événement USER_DELETED publié pour l'utilisateur: {}", userId);
+        logger.info("Événement USER_DELETED mis dans l'outbox pour l'utilisateur: {}", userId);
     }
     
     /**
@@ -71,19 +92,11 @@ public class UserEventPublisher {
     }
     
     /**
-     * Envoie l'événement vers RabbitMQ
+     * Écrit l'événement dans l'outbox, OutboxRelay s'occupe de l'envoi vers RabbitMQ
+     * Pas de try/catch : si l'écriture échoue, la modif de l'utilisateur doit échouer aussi
      */
     private void publishEvent(UserEvent event, String routingKey) {
-        try {
-            rabbitTemplate.convertAndSend(
-                USER_EXCHANGE,
-                routingKey,
-                event
-            );
-            logger.debug("Événement utilisateur envoyé avec succès: {}", event);
-        } catch (Exception e) {
-            logger.error("Erreur lors de l'envoi de l'événement utilisateur: {}", event, e);
-            // En production, on pourrait implémenter un retry ou stocker l'event pour retry plus tard
-        }
+        outboxWriter.write(List.of(new OutboxEvent(USER_EXCHANGE, routingKey, event)));
+        logger.debug("Événement utilisateur mis dans l'outbox: {}", event);
     }
 }
\ No newline at end of file
@@ -0,0 +1,372 @@
+package com.microcommerce.userservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microcommerce.userservice.dto.UserImportReport;
+import com.microcommerce.userservice.dto.UserImportRow;
+import com.microcommerce.userservice.model.User;
+import com.microcommerce.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Import en masse d'utilisateurs (listes clients des partenaires)
+ *
+ * Avant, la seule solution était un POST par utilisateur : BCrypt en série et deux requêtes
+ * Mongo par ligne. Ici :
+ * - le fichier (CSV ou NDJSON) est lu ligne par ligne, jamais chargé en entier
+ * - les lignes valides sont regroupées par lots de user-import.batch-size
+ * - les mots de passe d'un lot sont hachés en parallèle sur un pool à part
+ *   (pour ne pas prendre la place des logins dans PasswordHashingService)
+ * - chaque lot part en un seul insert bulk non ordonné : une ligne en double
+ *   n'empêche pas les autres d'être insérées
+ * - les events user.created d'un lot sont publiés ensemble
+ *
+ * Un seul import à la fois par instance.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+    /**
+     * Formats acceptés pour le fichier d'import
+     */
+    public enum Format {
+        CSV,    // Première ligne = en-têtes (name,email,password[,role])
+        NDJSON  // Un objet JSON par ligne
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserEventPublisher userEventPublisher;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user-import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${user-import.hashing-threads:0}") // 0 = la moitié des coeurs
+    private int hashingThreads;
+
+    @Value("${user-import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    private ExecutorService hashingExecutor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private Counter importedRows;
+    private Counter duplicateRows;
+    private Counter invalidRows;
+    private Timer batchTimer;
+
+    @PostConstruct
+    void init() {
+        int threads = hashingThreads > 0
+            ? hashingThreads
+            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        hashingExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "user-import-hashing-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        importedRows = rowCounter("imported");
+        duplicateRows = rowCounter("duplicate");
+        invalidRows = rowCounter("invalid");
+        batchTimer = Timer.builder("users.import.batch")
+            .description("Durée d'un lot d'import (hachage + insert bulk)")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingExecutor.shutdown();
+    }
+
+    /**
+     * Importe les utilisateurs lus dans input et renvoie le bilan ligne par ligne
+     */
+    public UserImportReport importUsers(InputStream input, Format format) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Un import est déjà en cours, réessayez plus tard");
+        }
+
+        long startedAt = System.currentTimeMillis();
+        UserImportReport report = new UserImportReport();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Map<String, Integer> csvColumns = null;
+            List<PendingRow> batch = new ArrayList<>(batchSize);
+            long lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && csvColumns == null) {
+                    csvColumns = parseCsvHeader(line);
+                    continue;
+                }
+
+                report.setTotalRows(report.getTotalRows() + 1);
+                UserImportRow row;
+                try {
+                    row = format == Format.CSV ? parseCsvRow(line, csvColumns) : parseJsonRow(line);
+                } catch (IllegalArgumentException e) {
+                    reject(report, lineNumber, null, e.getMessage(), false);
+                    continue;
+                }
+
+                Set<ConstraintViolation<UserImportRow>> violations = validator.validate(row);
+                if (!violations.isEmpty()) {
+                    String reason = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                    reject(report, lineNumber, row.getEmail(), reason, false);
+                    continue;
+                }
+
+                batch.add(new PendingRow(lineNumber, row));
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch, report);
+                    batch.clear();
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                writeBatch(batch, report);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Erreur de lecture du fichier d'import: " + e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+
+        report.setDurationMs(System.currentTimeMillis() - startedAt);
+        logger.info("Import terminé: {}", report);
+        return report;
+    }
+
+    /**
+     * Un lot : hachage en parallèle, insert bulk non ordonné, puis events/cache/stats pour les insérés
+     */
+    private void writeBatch(List<PendingRow> rows, UserImportReport report) {
+        batchTimer.record(() -> {
+            List<CompletableFuture<User>> hashing = rows.stream()
+                .map(row -> CompletableFuture.supplyAsync(() -> toUser(row.row), hashingExecutor))
+                .collect(Collectors.toList());
+            List<User> users = hashing.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+
+            // Index dans le lot -> erreur d'insertion
+            Map<Integer, DataAccessException> failures = userRepository.insertUnordered(users);
+
+            List<User> inserted = new ArrayList<>(users.size());
+            for (int i = 0; i < users.size(); i++) {
+                DataAccessException error = failures.get(i);
+                if (error == null) {
+                    inserted.add(users.get(i));
+                } else if (error instanceof DuplicateKeyException) {
+                    reject(report, rows.get(i).line, users.get(i).getEmail(), "Email déjà utilisé", true);
+                } else {
+                    reject(report, rows.get(i).line, users.get(i).getEmail(), error.getMessage(), false);
+                }
+            }
+
+            for (User user : inserted) {
+                userCache.invalidateEmail(user.getEmail());
+                userStatsService.recordCreated(user.getRole(), user.getCreatedAt());
+            }
+            report.setImported(report.getImported() + inserted.size());
+            importedRows.increment(inserted.size());
+
+            if (!inserted.isEmpty()) {
+                userEventPublisher.publishUsersCreated(inserted);
+            }
+        });
+    }
+
+    /**
+     * Construit l'entité : l'ID est généré ici pour pouvoir publier les events après l'insert bulk
+     */
+    private User toUser(UserImportRow row) {
+        User user = new User();
+        user.setId(new ObjectId().toHexString());
+        user.setName(row.getName().trim());
+        user.setEmail(row.getEmail().trim());
+        user.setPassword(passwordEncoder.encode(row.getPassword()));
+        user.setRole(row.getRole() != null ? row.getRole() : "USER");
+        user.setCreatedAt(Instant.now());
+        return user;
+    }
+
+    private void reject(UserImportReport report, long line, String email, String reason, boolean duplicate) {
+        if (duplicate) {
+            report.setDuplicates(report.getDuplicates() + 1);
+            duplicateRows.increment();
+        } else {
+            report.setInvalid(report.getInvalid() + 1);
+            invalidRows.increment();
+        }
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(new UserImportReport.RowError(line, email, reason));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    private UserImportRow parseJsonRow(String line) {
+        try {
+            return objectMapper.readValue(line, UserImportRow.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON invalide: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * En-têtes CSV : position de chaque colonne connue, dans n'importe quel ordre
+     */
+    private Map<String, Integer> parseCsvHeader(String line) {
+        List<String> headers = splitCsvLine(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < headers.size(); i++) {
+            columns.put(headers.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("name", "email", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new RuntimeException("Colonne CSV manquante: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private UserImportRow parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsvLine(line);
+        return new UserImportRow(
+            csvValue(values, columns.get("name")),
+            csvValue(values, columns.get("email")),
+            csvValue(values, columns.get("password")),
+            csvValue(values, columns.get("role"))
+        );
+    }
+
+    private String csvValue(List<String> values, Integer index) {
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index);
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Découpe une ligne CSV (séparateur virgule, champs entre guillemets, "" pour un guillemet)
+     * Les retours à la ligne dans un champ ne sont pas supportés : une ligne = un utilisateur
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Guillemet non fermé dans la ligne CSV");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private Counter rowCounter(String outcome) {
+        return Counter.builder("users.import.rows")
+            .description("Lignes traitées par l'import d'utilisateurs")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Ligne valide en attente d'insertion, avec son numéro de ligne pour le bilan
+     */
+    private static final class PendingRow {
+        private final long line;
+        private final UserImportRow row;
+
+        private PendingRow(long line, UserImportRow row) {
+            this.line = line;
+            this.row = row;
+        }
+    }
+}
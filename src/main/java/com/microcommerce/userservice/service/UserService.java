@@ -1,25 +1,42 @@
 package com.microcommerce.userservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.microcommerce.userservice.dto.*;
 import com.microcommerce.userservice.model.User;
 import com.microcommerce.userservice.repository.UserRepository;
+import com.microcommerce.userservice.repository.UserSummary;
 import com.microcommerce.userservice.event.UserEvent;
 import com.microcommerce.userservice.service.UserEventPublisher;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Notre service principal pour gérer les utilisateurs
@@ -39,7 +56,34 @@ public class UserService implements UserDetailsService {
     private UserEventPublisher userEventPublisher;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private UserStatsService userStatsService;
+    
+    @Autowired
+    private UserWriteTransaction userWriteTransaction;
+    
+    // Plus petit ObjectId possible : point de départ de la pagination
+    private static final String FIRST_CURSOR = "000000000000000000000000";
+    
+    // Au-delà, la recherche texte (skip) coûte trop cher : il faut affiner la recherche
+    private static final int MAX_TEXT_OFFSET = 10000;
+    
+    // Séparateurs de mots pour la recherche texte (guillemets et tirets ont un sens pour $text)
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    
+    @Value("${pagination.default-page-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${pagination.max-page-size:500}")
+    private int maxPageSize;
     
     @Autowired
     @Lazy
@@ -49,20 +93,18 @@ public class UserService implements UserDetailsService {
      * Inscription d'un nouvel utilisateur
      */
     public AuthResponse register(RegisterRequest request) {
-        // On vérifie si l'email existe déjà
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Un compte avec cet email existe déjà");
-        }
-        
         // On crée le nouvel utilisateur
         User user = new User();
         user.setName(request.getName());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword())); // Hash du mot de passe
+        // Hash du mot de passe sur le pool dédié
+        user.setPassword(passwordHashingService.encode(PasswordHashingService.Operation.REGISTER, request.getPassword()));
         user.setRole("USER"); // Rôle par défaut pour les nouveaux utilisateurs
         
-        // On sauvegarde en base
-        User savedUser = userRepository.save(user);
+        // Un seul aller-retour : c'est l'index unique sur l'email qui refuse les doublons
+        User savedUser = insertUser(user, "Un compte avec cet email existe déjà");
+        userCache.invalidateEmail(savedUser.getEmail());
+        userStatsService.recordCreated(savedUser.getRole(), savedUser.getCreatedAt());
         
         // Le token JWT sera généré par AuthService
         String token = "registration-success";
@@ -91,30 +133,48 @@ public class UserService implements UserDetailsService {
     }
     
     /**
-     * Récupère tous les utilisateurs
+     * Récupère une page d'utilisateurs (pagination par curseur sur l'ID)
+     * Plus de findAll() qui charge toute la collection en mémoire
      */
-    public List<UserResponse> getAllUsers() {
-        return userRepository.findAll()
-            .stream()
-            .map(this::convertToUserResponse)
-            .collect(Collectors.toList());
+    public UserPage getAllUsers(String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        return toPage(userRepository.findByIdGreaterThanOrderByIdAsc(
+            resolveCursor(cursor), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+    
+    /**
+     * Exporte tous les utilisateurs en NDJSON (un UserResponse JSON par ligne)
+     * Les documents sont écrits au fil du curseur Mongo : mémoire constante
+     */
+    public void exportUsers(OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(UserResponse.class);
+        OutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+        try (Stream<UserSummary> users = userRepository.streamAllBy()) {
+            Iterator<UserSummary> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                out.write(writer.writeValueAsBytes(convertToUserResponse(iterator.next())));
+                out.write('\n');
+            }
+        }
+        out.flush();
     }
     
     /**
      * Chope un utilisateur par son ID
      */
     public UserResponse getUserById(String id) {
-        User user = userRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé avec l'ID: " + id));
-        return convertToUserResponse(user);
+        return convertToUserResponse(getCachedUser(id));
     }
     
     /**
      * Chope un utilisateur par son email
      */
     public UserResponse getUserByEmail(String email) {
-        User user = userRepository.findByEmail(email)
-            .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé avec l'email: " + email));
+        CachedUser user = userCache.getByEmail(email,
+            key -> userRepository.findSummaryByEmail(key).map(CachedUser::from).orElse(null));
+        if (user == null) {
+            throw new RuntimeException("Utilisateur non trouvé avec l'email: " + email);
+        }
         return convertToUserResponse(user);
     }
     
@@ -125,11 +185,7 @@ public class UserService implements UserDetailsService {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé avec l'ID: " + id));
         
-        // On vérifie si le nouvel email n'est pas déjà pris par quelqu'un d'autre
-        if (!user.getEmail().equals(request.getEmail()) && 
-            userRepository.existsByEmail(request.getEmail())) {
-            throw new RuntimeException("Cet email est déjà utilisé par un autre compte");
-        }
+        String previousEmail = user.getEmail();
         
         // On met à jour les champs
         user.setName(request.getName());
@@ -137,13 +193,27 @@ public class UserService implements UserDetailsService {
         
         // Mettre à jour le mot de passe avec PasswordEncoder
         if (request.getPassword() != null && !request.getPassword().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(request.getPassword()));
+            user.setPassword(passwordHashingService.encode(PasswordHashingService.Operation.UPDATE, request.getPassword()));
         }
         
-        User updatedUser = userRepository.save(user);
-        
-        // Publier l'événement de mise à jour d'utilisateur
-        userEventPublisher.publishUserUpdated(updatedUser);
+        // Si le nouvel email est déjà pris, l'index unique refuse la sauvegarde
+        // L'événement part dans l'outbox avec la sauvegarde
+        User updatedUser;
+        try {
+            updatedUser = userWriteTransaction.execute(() -> {
+                User saved = userRepository.save(user);
+                userEventPublisher.publishUserUpdated(saved);
+                return saved;
+            });
+        } catch (DuplicateKeyException e) {
+            throw new EmailAlreadyUsedException("Cet email est déjà utilisé par un autre compte", e);
+        } finally {
+            // Même si l'outbox échoue après la sauvegarde (sans transaction) : plus de copie
+            // périmée dans le cache local (les autres instances suivent via l'event)
+            userCache.invalidate(id);
+            userCache.invalidateEmail(previousEmail);
+            userCache.invalidateEmail(user.getEmail());
+        }
         
         return convertToUserResponse(updatedUser);
     }
@@ -155,30 +225,195 @@ public class UserService implements UserDetailsService {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé avec l'ID: " + id));
         
-        userRepository.deleteById(id);
-        
-        // Publier l'événement de suppression d'utilisateur
-        userEventPublisher.publishUserDeleted(user.getId());
+        // Suppression + événement de suppression dans l'outbox
+        try {
+            userWriteTransaction.execute(() -> {
+                userRepository.deleteById(id);
+                userEventPublisher.publishUserDeleted(user.getId());
+                return null;
+            });
+        } finally {
+            userCache.invalidate(id);
+            userCache.invalidateEmail(user.getEmail());
+        }
+        userStatsService.recordDeleted(user.getRole(), user.getCreatedAt());
     }
     
     /**
      * Recherche des utilisateurs par nom
+     * 
+     * - mode "prefix" (défaut) : noms qui commencent par la saisie, ordre alphabétique
+     *   (le nom exact arrive en premier), pagination keyset sur (nameLower, _id)
+     * - mode "text" : noms qui contiennent un des mots, triés par pertinence,
+     *   pagination par offset (bornée par MAX_TEXT_OFFSET)
+     * 
+     * La saisie est normalisée comme nameLower (minuscules, sans accents)
      */
-    public List<UserResponse> searchUsersByName(String name) {
-        return userRepository.searchByName(name)
-            .stream()
-            .map(this::convertToUserResponse)
+    public UserPage searchUsersByName(String name, String mode, String cursor, Integer size) {
+        String normalized = normalizeSearch(name);
+        int pageSize = resolvePageSize(size);
+        
+        if (isTextSearch(mode)) {
+            List<String> tokens = searchTokens(name, normalized);
+            int offset = resolveOffset(cursor);
+            List<UserSummary> users = userRepository.searchByNameTokens(tokens, offset, pageSize + 1);
+            return toPage(users, pageSize, nextTextCursor(users, offset, pageSize));
+        }
+        
+        String[] after = decodeSearchCursor(cursor);
+        List<UserSummary> users = userRepository.searchByNamePrefix(normalized, after[0], after[1], pageSize + 1);
+        return toPage(users, pageSize, nextPrefixCursor(users, pageSize));
+    }
+    
+    /**
+     * Saisie de recherche normalisée comme nameLower (obligatoire)
+     */
+    String normalizeSearch(String name) {
+        String normalized = User.normalizeName(name);
+        if (normalized.isEmpty()) {
+            throw new RuntimeException("Le nom à rechercher est obligatoire");
+        }
+        return normalized;
+    }
+    
+    /**
+     * Mode "text" ou "prefix" (défaut)
+     */
+    boolean isTextSearch(String mode) {
+        if ("text".equalsIgnoreCase(mode)) {
+            return true;
+        }
+        if (mode != null && !"prefix".equalsIgnoreCase(mode)) {
+            throw new RuntimeException("Mode de recherche inconnu: " + mode + " (prefix ou text)");
+        }
+        return false;
+    }
+    
+    /**
+     * Mots distincts de la saisie pour la recherche texte
+     */
+    List<String> searchTokens(String name, String normalized) {
+        List<String> tokens = Arrays.stream(NON_WORD.split(normalized))
+            .filter(token -> !token.isEmpty())
+            .distinct()
             .collect(Collectors.toList());
+        if (tokens.isEmpty()) {
+            throw new RuntimeException("Aucun mot à rechercher dans: " + name);
+        }
+        return tokens;
+    }
+    
+    /**
+     * Curseur de la page suivante en recherche texte (null si c'est la dernière)
+     */
+    String nextTextCursor(List<UserSummary> users, int offset, int pageSize) {
+        boolean hasMore = users.size() > pageSize && offset + pageSize < MAX_TEXT_OFFSET;
+        return hasMore ? String.valueOf(offset + pageSize) : null;
+    }
+    
+    /**
+     * Curseur de la page suivante en recherche par préfixe (null si c'est la dernière)
+     */
+    String nextPrefixCursor(List<UserSummary> users, int pageSize) {
+        if (users.size() <= pageSize) {
+            return null;
+        }
+        UserSummary last = users.get(pageSize - 1);
+        return encodeSearchCursor(User.normalizeName(last.getName()), last.getId());
+    }
+    
+    /**
+     * Curseur de recherche par préfixe : "nameLower\nid" en base64 url
+     * (nameLower ne contient jamais de retour à la ligne, les espaces sont normalisés)
+     */
+    private String encodeSearchCursor(String nameLower, String id) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((nameLower + "\n" + id).getBytes(StandardCharsets.UTF_8));
     }
     
     /**
-     * Récupère les utilisateurs par rôle
+     * {afterName, afterId} du curseur, ou {null, null} pour la première page
      */
-    public List<UserResponse> getUsersByRole(String role) {
-        return userRepository.findByRole(role)
-            .stream()
+    String[] decodeSearchCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return new String[] { null, null };
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('\n');
+            if (separator >= 0 && ObjectId.isValid(decoded.substring(separator + 1))) {
+                return new String[] { decoded.substring(0, separator), decoded.substring(separator + 1) };
+            }
+        } catch (IllegalArgumentException e) {
+            // Pas du base64 : on tombe sur l'erreur plus bas
+        }
+        throw new RuntimeException("Curseur de recherche invalide: " + cursor);
+    }
+    
+    /**
+     * Curseur de la recherche texte : l'offset de la page suivante
+     */
+    int resolveOffset(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(cursor);
+            if (offset >= 0 && offset < MAX_TEXT_OFFSET) {
+                return offset;
+            }
+        } catch (NumberFormatException e) {
+            // On tombe sur l'erreur plus bas
+        }
+        throw new RuntimeException("Curseur de recherche invalide: " + cursor);
+    }
+    
+    /**
+     * Récupère les utilisateurs par rôle (paginés par curseur)
+     */
+    public UserPage getUsersByRole(String role, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        return toPage(userRepository.findByRoleAndIdGreaterThanOrderByIdAsc(
+            role, resolveCursor(cursor), PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+    
+    /**
+     * Taille de page demandée, bornée par pagination.max-page-size
+     */
+    int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
+    }
+    
+    /**
+     * Curseur de départ : pas de curseur = depuis le début
+     */
+    String resolveCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return FIRST_CURSOR;
+        }
+        if (!ObjectId.isValid(cursor)) {
+            throw new RuntimeException("Curseur de pagination invalide: " + cursor);
+        }
+        return cursor;
+    }
+    
+    /**
+     * Construit la page : on a lu pageSize + 1 éléments pour savoir s'il y a une suite
+     */
+    UserPage toPage(List<UserSummary> users, int pageSize) {
+        String nextCursor = users.size() > pageSize ? users.get(pageSize - 1).getId() : null;
+        return toPage(users, pageSize, nextCursor);
+    }
+    
+    UserPage toPage(List<UserSummary> users, int pageSize, String nextCursor) {
+        List<UserSummary> pageContent = users.size() > pageSize ? users.subList(0, pageSize) : users;
+        List<UserResponse> responses = pageContent.stream()
             .map(this::convertToUserResponse)
             .collect(Collectors.toList());
+        return new UserPage(responses, nextCursor);
     }
     
     /**
@@ -194,24 +429,34 @@ public class UserService implements UserDetailsService {
             throw new RuntimeException("Le nom est obligatoire");
         }
         
-        // Vérifier si l'email existe déjà
-        if (userRepository.findByEmail(user.getEmail()).isPresent()) {
-            throw new RuntimeException("Un utilisateur avec cet email existe déjà");
-        }
-        
         // Encoder le mot de passe
         if (user.getPassword() != null) {
-            user.setPassword(passwordEncoder.encode(user.getPassword()));
+            user.setPassword(passwordHashingService.encode(PasswordHashingService.Operation.REGISTER, user.getPassword()));
         }
         
-        User savedUser = userRepository.save(user);
-        
-        // Publier l'événement de création d'utilisateur
-        userEventPublisher.publishUserCreated(savedUser);
+        // Insertion + événement de création dans l'outbox
+        User savedUser = userWriteTransaction.execute(() -> {
+            User inserted = insertUser(user, "Un utilisateur avec cet email existe déjà");
+            userEventPublisher.publishUserCreated(inserted);
+            return inserted;
+        });
+        userCache.invalidateEmail(savedUser.getEmail());
+        userStatsService.recordCreated(savedUser.getRole(), savedUser.getCreatedAt());
         
         return savedUser;
     }
 
+    /**
+     * Insère un nouvel utilisateur, un email déjà pris donne une EmailAlreadyUsedException
+     * (insert et pas save : un ID fourni par le client ne doit pas écraser un compte existant)
+     */
+    private User insertUser(User user, String duplicateMessage) {
+        try {
+            return userRepository.insert(user);
+        } catch (DuplicateKeyException e) {
+            throw new EmailAlreadyUsedException(duplicateMessage, e);
+        }
+    }
     
     /**
      * Méthode requise par UserDetailsService pour Spring Security
@@ -226,9 +471,40 @@ public class UserService implements UserDetailsService {
      * Récupère les infos d'un utilisateur pour les autres services
      */
     public UserInfoDto getUserInfoDto(String id) {
-        User user = userRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé avec l'ID: " + id));
-        return convertToUserInfoDto(user);
+        return convertToUserInfoDto(getCachedUser(id));
+    }
+    
+    /**
+     * Récupère les infos de plusieurs utilisateurs en une fois pour les autres services
+     * Cache d'abord, puis une seule requête $in pour le reste
+     * Les IDs inconnus sont ignorés, l'ordre de la demande est conservé
+     */
+    public List<UserInfoDto> getUserInfoDtos(List<String> ids) {
+        Set<String> uniqueIds = new LinkedHashSet<>(ids);
+        uniqueIds.remove(null);
+        
+        Map<String, CachedUser> users = userCache.getAllById(uniqueIds, missingIds -> 
+            userRepository.findSummariesByIdIn(missingIds)
+                .stream()
+                .collect(Collectors.toMap(UserSummary::getId, CachedUser::from)));
+        
+        return uniqueIds.stream()
+            .map(users::get)
+            .filter(Objects::nonNull)
+            .map(this::convertToUserInfoDto)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Lit un utilisateur via le cache local (MongoDB seulement sur un miss)
+     */
+    private CachedUser getCachedUser(String id) {
+        CachedUser user = userCache.getById(id,
+            key -> userRepository.findSummaryById(key).map(CachedUser::from).orElse(null));
+        if (user == null) {
+            throw new RuntimeException("Utilisateur non trouvé avec l'ID: " + id);
+        }
+        return user;
     }
     
     /**
@@ -244,9 +520,23 @@ public class UserService implements UserDetailsService {
     }
     
     /**
-     * Convertit une entité User en UserInfoDto (format allégé pour les autres services)
+     * Convertit une projection UserSummary en UserResponse
+     */
+    UserResponse convertToUserResponse(UserSummary user) {
+        return new UserResponse(user.getId(), user.getName(), user.getEmail(), user.getRole());
+    }
+    
+    /**
+     * Convertit un utilisateur du cache en UserResponse
      */
-    private UserInfoDto convertToUserInfoDto(User user) {
+    UserResponse convertToUserResponse(CachedUser user) {
+        return new UserResponse(user.getId(), user.getName(), user.getEmail(), user.getRole());
+    }
+    
+    /**
+     * Convertit un utilisateur du cache en UserInfoDto (format allégé pour les autres services)
+     */
+    UserInfoDto convertToUserInfoDto(CachedUser user) {
         return new UserInfoDto(
             user.getId(),
             user.getName(),
@@ -257,12 +547,24 @@ public class UserService implements UserDetailsService {
     
     /**
      * Statistiques des utilisateurs (nombre total, par rôle, etc.)
+     * Lues en mémoire, cf. UserStatsService
      */
     public Map<String, Long> getUserStats() {
-        Map<String, Long> stats = new HashMap<>();
-        stats.put("totalUsers", userRepository.count());
-        stats.put("adminUsers", userRepository.countByRole("ADMIN"));
-        stats.put("regularUsers", userRepository.countByRole("USER"));
-        return stats;
+        return userStatsService.getUserStats();
+    }
+    
+    /**
+     * Inscriptions par heure ou par jour sur les derniers jours
+     */
+    public Map<String, Long> getSignupStats(String granularity, int days) {
+        ChronoUnit unit;
+        if ("hour".equalsIgnoreCase(granularity)) {
+            unit = ChronoUnit.HOURS;
+        } else if (granularity == null || "day".equalsIgnoreCase(granularity)) {
+            unit = ChronoUnit.DAYS;
+        } else {
+            throw new RuntimeException("Granularité inconnue: " + granularity + " (hour ou day)");
+        }
+        return userStatsService.getSignups(unit, days);
     }
 }
\ No newline at end of file
@@ -0,0 +1,222 @@
+package com.microcommerce.userservice.service;
+
+import com.microcommerce.userservice.repository.GroupCount;
+import com.microcommerce.userservice.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Statistiques utilisateurs tenues en mémoire
+ *
+ * GET /api/users/stats faisait un count() + deux countByRole à chaque appel.
+ * Maintenant :
+ * - des compteurs par rôle mis à jour par UserService (création / suppression / changement de rôle)
+ * - des compteurs d'inscriptions par heure (les jours sont des sommes d'heures)
+ * - un recalage périodique contre Mongo (une agrégation par rôle, une sur createdAt)
+ *
+ * Les compteurs ne voient que les écritures de cette instance : entre deux recalages,
+ * les stats peuvent être en retard sur ce que les autres replicas ont écrit.
+ */
+@Service
+public class UserStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStatsService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user-stats.signup-retention-days:90}")
+    private int signupRetentionDays;
+
+    private final ConcurrentHashMap<String, LongAdder> usersByRole = new ConcurrentHashMap<>();
+
+    // Inscriptions par heure (clé : début de l'heure, UTC)
+    private volatile ConcurrentSkipListMap<Instant, LongAdder> signupsByHour = new ConcurrentSkipListMap<>();
+
+    private volatile Instant lastReconciledAt;
+
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    private Timer reconcileTimer;
+
+    @PostConstruct
+    void init() {
+        reconcileTimer = Timer.builder("users.stats.reconcile")
+            .description("Durée du recalage des statistiques utilisateurs contre MongoDB")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Un utilisateur vient d'être créé
+     */
+    public void recordCreated(String role, Instant createdAt) {
+        roleCounter(role).increment();
+        if (createdAt != null) {
+            counter(signupsByHour, createdAt.truncatedTo(ChronoUnit.HOURS)).increment();
+        }
+    }
+
+    /**
+     * Un utilisateur vient d'être supprimé
+     */
+    public void recordDeleted(String role, Instant createdAt) {
+        roleCounter(role).decrement();
+        if (createdAt != null) {
+            LongAdder bucket = signupsByHour.get(createdAt.truncatedTo(ChronoUnit.HOURS));
+            if (bucket != null) {
+                bucket.decrement();
+            }
+        }
+    }
+
+    /**
+     * Un utilisateur a changé de rôle
+     */
+    public void recordRoleChanged(String previousRole, String newRole) {
+        if (previousRole == null ? newRole == null : previousRole.equals(newRole)) {
+            return;
+        }
+        roleCounter(previousRole).decrement();
+        roleCounter(newRole).increment();
+    }
+
+    /**
+     * Nombre total, admins et utilisateurs classiques (lecture en mémoire)
+     */
+    public Map<String, Long> getUserStats() {
+        ensureReconciled();
+        long total = usersByRole.values().stream().mapToLong(LongAdder::sum).sum();
+
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("totalUsers", total);
+        stats.put("adminUsers", count("ADMIN"));
+        stats.put("regularUsers", count("USER"));
+        return stats;
+    }
+
+    /**
+     * Inscriptions par heure ou par jour sur les derniers jours (clé ISO-8601, ordre chronologique)
+     * Seuls les créneaux avec au moins une inscription sont renvoyés
+     */
+    public Map<String, Long> getSignups(ChronoUnit granularity, int days) {
+        if (granularity != ChronoUnit.HOURS && granularity != ChronoUnit.DAYS) {
+            throw new RuntimeException("Granularité non supportée: " + granularity);
+        }
+        if (days <= 0 || days > signupRetentionDays) {
+            throw new RuntimeException("La période doit être entre 1 et " + signupRetentionDays + " jours");
+        }
+        ensureReconciled();
+
+        Instant since = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(days - 1L, ChronoUnit.DAYS);
+        NavigableMap<Instant, LongAdder> recent = signupsByHour.tailMap(since, true);
+
+        Map<String, Long> signups = new LinkedHashMap<>();
+        recent.forEach((hour, count) -> {
+            long value = count.sum();
+            if (value > 0) {
+                signups.merge(hour.truncatedTo(granularity).toString(), value, Long::sum);
+            }
+        });
+        return signups;
+    }
+
+    /**
+     * Recalage contre MongoDB : corrige les écritures des autres instances et
+     * ce qui a pu être raté ici (DataInitializer, imports, crash entre save et compteur)
+     *
+     * Une écriture concurrente au recalage peut être comptée deux fois ou pas du tout,
+     * le recalage suivant la rattrape.
+     * 
+     * Verrou explicite plutôt que synchronized : on attend Mongo en le tenant,
+     * et un thread virtuel bloqué dans un synchronized bloque aussi son thread porteur.
+     */
+    @Scheduled(fixedDelayString = "${user-stats.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            reconcileTimer.record(this::reconcileWithMongo);
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void reconcileWithMongo() {
+        Map<String, Long> actualByRole = new LinkedHashMap<>();
+        for (GroupCount group : userRepository.countGroupedByRole()) {
+            actualByRole.merge(roleKey(group.getId()), group.getCount(), Long::sum);
+        }
+
+        long drift = 0;
+        for (Map.Entry<String, LongAdder> entry : usersByRole.entrySet()) {
+            if (!actualByRole.containsKey(entry.getKey())) {
+                drift += Math.abs(entry.getValue().sumThenReset());
+            }
+        }
+        for (Map.Entry<String, Long> entry : actualByRole.entrySet()) {
+            LongAdder counter = roleCounter(entry.getKey());
+            long expected = entry.getValue();
+            long current = counter.sum();
+            counter.add(expected - current);
+            drift += Math.abs(expected - current);
+        }
+
+        Instant since = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(signupRetentionDays, ChronoUnit.DAYS);
+        ConcurrentSkipListMap<Instant, LongAdder> freshSignups = new ConcurrentSkipListMap<>();
+        for (GroupCount group : userRepository.countSignupsPerHourSince(since)) {
+            counter(freshSignups, Instant.parse(group.getId())).add(group.getCount());
+        }
+        signupsByHour = freshSignups;
+
+        if (drift > 0 && lastReconciledAt != null) {
+            logger.info("Statistiques utilisateurs recalées (écart de {})", drift);
+        }
+        lastReconciledAt = Instant.now();
+    }
+
+    /**
+     * Premier appel avant le premier recalage planifié : on recale tout de suite
+     */
+    private void ensureReconciled() {
+        if (lastReconciledAt == null) {
+            reconcile();
+        }
+    }
+
+    private long count(String role) {
+        LongAdder counter = usersByRole.get(role);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    private static <K> LongAdder counter(Map<K, LongAdder> counters, K key) {
+        return counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private LongAdder roleCounter(String role) {
+        return usersByRole.computeIfAbsent(roleKey(role), k -> new LongAdder());
+    }
+
+    // ConcurrentHashMap n'accepte pas de clé null
+    private static String roleKey(String role) {
+        return role != null ? role : "NONE";
+    }
+}
@@ -0,0 +1,39 @@
+package com.microcommerce.userservice.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Regroupe une écriture utilisateur et l'écriture de son événement outbox
+ * 
+ * Avec user-events.outbox.transactions=true (replica set), les deux sont dans
+ * une transaction Mongo. Sans, elles s'enchaînent simplement : un crash pile entre
+ * les deux peut encore perdre un événement, mais plus une panne du broker.
+ */
+@Component
+public class UserWriteTransaction {
+    
+    @Autowired
+    private ObjectProvider<PlatformTransactionManager> transactionManager;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void init() {
+        PlatformTransactionManager manager = transactionManager.getIfAvailable();
+        transactionTemplate = manager != null ? new TransactionTemplate(manager) : null;
+    }
+    
+    public <T> T execute(Supplier<T> work) {
+        if (transactionTemplate == null) {
+            return work.get();
+        }
+        return transactionTemplate.execute(status -> work.get());
+    }
+}